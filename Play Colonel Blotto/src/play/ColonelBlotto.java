@@ -10,24 +10,62 @@ import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import analytics.CorpusAnalytics;
+import baseline.PayoffCache;
 import baseline.Scheme;
 import baseline.Strategy;
 import com.google.gson.Gson;
 
 /**
- * This class plays the mixed strategies developed by the different approaches.
+ * This class plays the mixed strategies developed by the different approaches. By default each variation plays
+ * baseline for GAMES games. With the argument sequential, games are played in batches until Wald's sequential
+ * probability ratio test on the variant's share of decisive games decides which approach is stronger, or the budget
+ * runs out. With the argument league, every approach plays every other in a League. With the argument serve, a
+ * QueryService answers queries about the saved strategies until stopped. With the argument analytics,
+ * CorpusAnalytics reports statistics over every saved strategy.
  *
  * @author John Gilbertson
  */
 public class ColonelBlotto {
     private static final int NUMBER_OF_BATTLEFIELDS = 10;
     private static final double GAMES = 10_000;
+    private static final int BATCH = 500;               // Games between checks of the sequential test
+    private static final int MAX_GAMES = 200_000;       // The budget of the sequential test per variation
+    private static final double SPRT_DELTA = .05;       // Decide once the variant's share of decisive games is
+                                                        // clearly 50% - delta or 50% + delta
+    private static final double SPRT_ALPHA = .05;       // The chance of deciding for the wrong approach
+    private static final double SPRT_BETA = .05;
     private static final Gson GSON = new Gson();
     private static final Random RANDOM = new Random();
     private static Random BASELINE_RANDOM;
     private static Random VARIANT_RANDOM;
 
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws Exception {
+        // Play every approach against every other instead of against baseline
+        if (args.length > 0 && args[0].equalsIgnoreCase("league")) {
+            League.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Answer queries about the saved strategies until stopped
+        if (args.length > 0 && args[0].equalsIgnoreCase("serve")) {
+            QueryService.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Report statistics over every saved strategy
+        if (args.length > 0 && args[0].equalsIgnoreCase("analytics")) {
+            CorpusAnalytics.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+        // Play each variation until a sequential test decides it rather than for a fixed number of games
+        boolean sequential = args.length > 0 && args[0].equalsIgnoreCase("sequential");
+
+        // Wald's bounds on the log-likelihood ratio, and the steps a variant win or loss adds to it
+        double upper = Math.log((1 - SPRT_BETA) / SPRT_ALPHA), lower = Math.log(SPRT_BETA / (1 - SPRT_ALPHA));
+        double winStep = Math.log((.5 + SPRT_DELTA) / (.5 - SPRT_DELTA)), lossStep = -winStep;
+
         long baselineSeed = System.currentTimeMillis();
         long variantSeed = System.nanoTime();
 
@@ -42,8 +80,11 @@ public class ColonelBlotto {
             long baselineWins = 0, variantWins = 0;
             long baselinePayoff = 0, variantPayoff = 0;
             double baselineUtilTotal = 0, variantUtilTotal = 0;
+            double logLikelihoodRatio = 0;
+            String decision = null;
+            long games = 0;
 
-            for (int i = 0; i < GAMES; i++) {
+            while (games < (sequential ? MAX_GAMES : GAMES)) {
                 // Randomly select a mixed strategy from baseline approach for player 1
                 Strategy baseline = getApproach("baseline");
 
@@ -66,17 +107,53 @@ public class ColonelBlotto {
 
                 if (baselineUtil > variantUtil) {
                     baselineWins++;
+                    logLikelihoodRatio += lossStep;
                 } else if (baselineUtil < variantUtil) {
                     variantWins++;
+                    logLikelihoodRatio += winStep;
+                }
+                games++;
+
+                if (sequential && games % BATCH == 0) {
+                    if (logLikelihoodRatio >= upper) {
+                        decision = variation + " is stronger";
+                    } else if (logLikelihoodRatio <= lower) {
+                        decision = "baseline is stronger";
+                    }
+                    if (decision != null) {
+                        break;
+                    }
                 }
             }
 
             // Print results in a table
             System.out.println(System.lineSeparator() + variation);
             System.out.printf("%10s|%s|%s%n", "", "variant", "baseline");
-            System.out.printf("%-10s|%6.2f%%|%7.2f%%%n", "wins", variantWins / GAMES * 100, baselineWins / GAMES * 100);
-            System.out.printf("%-10s|%6.2f |%7.2f%n", "avg payoff", variantPayoff / GAMES, baselinePayoff / GAMES);
-            System.out.printf("%-10s|%6.2f |%7.2f%n", "util/game", variantUtilTotal / GAMES, baselineUtilTotal / GAMES);
+            System.out.printf("%-10s|%6.2f%%|%7.2f%%%n", "wins", variantWins * 100.0 / games, baselineWins * 100.0 / games);
+            System.out.printf("%-10s|%6.2f |%7.2f%n", "avg payoff", variantPayoff / (double) games, baselinePayoff / (double) games);
+            System.out.printf("%-10s|%6.2f |%7.2f%n", "util/game", variantUtilTotal / games, baselineUtilTotal / games);
+
+            // Each game's utility is 1, -1 or 0, so its square counts the decisive games
+            double mean = variantUtilTotal / games;
+            double standardError = Math.sqrt(Math.max((variantWins + baselineWins) / (double) games - mean * mean, 0) / games);
+            if (sequential) {
+                // Stopping on the data narrows the fixed-sample interval, so the test's error rates are its confidence
+                System.out.println(decision != null
+                        ? String.format("SPRT: %s after %d games, %.0f%% confidence (alpha = %.2f, beta = %.2f)",
+                        decision, games, (1 - Math.max(SPRT_ALPHA, SPRT_BETA)) * 100, SPRT_ALPHA, SPRT_BETA)
+                        : "SPRT: undecided after the budget of " + MAX_GAMES + " games, too close to call within "
+                        + SPRT_DELTA * 100 + "% of even");
+                System.out.printf("variant util/game %.4f +/- %.4f (95%% CI, not adjusted for early stopping)%n",
+                        mean, 1.96 * standardError);
+            } else {
+                double pValue = standardError > 0 ? twoSidedPValue(mean / standardError) : 1;
+                System.out.printf("%d games, variant util/game %.4f +/- %.4f (95%% CI), p = %.2g if it were 0%n",
+                        games, mean, 1.96 * standardError, pValue);
+            }
+        }
+
+        if (PayoffCache.ENABLED) {
+            System.out.println(System.lineSeparator() + "Payoff cache: " + PayoffCache.SHARED);
         }
     }
 
@@ -88,6 +165,12 @@ public class ColonelBlotto {
      * @return any array of ints. 0: values 1, -1, or 0 if player 1 wins, loses, or ties, respectively. 1: player 1's payoff. 2: player 2's payoff.
      */
     public static int[] play(Scheme player1Scheme, Scheme player2Scheme) {
+        if (PayoffCache.ENABLED) {
+            int scores = PayoffCache.SHARED.scores(player1Scheme, player2Scheme);
+            int player1Score = PayoffCache.player1Score(scores), player2Score = PayoffCache.player2Score(scores);
+            return new int[]{Integer.compare(player1Score, player2Score), player1Score, player2Score};
+        }
+
         int player1Score = 0, player2Score = 0;
         for (int i = 0; i < NUMBER_OF_BATTLEFIELDS; i++) {
             if (player1Scheme.getBattlefieldTroops(i) > player2Scheme.getBattlefieldTroops(i)) {
@@ -99,6 +182,18 @@ public class ColonelBlotto {
         return new int[]{Integer.compare(player1Score, player2Score), player1Score, player2Score};
     }
 
+    /**
+     * @param z a value of a standard normal variable
+     * @return the chance the variable is at least as far from 0 as z
+     */
+    private static double twoSidedPValue(double z) {
+        // Abramowitz and Stegun 7.1.26 for the complementary error function of |z| / sqrt(2)
+        double x = Math.abs(z) / Math.sqrt(2);
+        double t = 1 / (1 + .3275911 * x);
+        return t * (.254829592 + t * (-.284496736 + t * (1.421413741 + t * (-1.453152027 + t * 1.061405429))))
+                * Math.exp(-x * x);
+    }
+
     /**
      * Choose the next scheme based on their average probability from regret-matching.
      *
@@ -0,0 +1,91 @@
+package play;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies that any number of threads can record into without locking. Bucket i counts the latencies
+ * of at least 2^(i-1) and under 2^i nanoseconds, so percentiles are accurate to within a factor of two, which is
+ * enough to tell microseconds from milliseconds.
+ */
+class LatencyHistogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private volatile long maxNanos;
+
+    /**
+     * @param nanos the latency of one request in nanoseconds
+     */
+    void record(long nanos) {
+        counts.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 0)));
+        totalNanos.add(nanos);
+        // A lost race only loses a maximum that another thread is raising anyway
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    /**
+     * @return the number of latencies recorded
+     */
+    long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @param fraction the fraction of latencies at or below the percentile, such as .99
+     * @return the upper bound in microseconds of the bucket holding the percentile, or 0 if none were recorded
+     */
+    double percentileMicros(double fraction) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(fraction * count), seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(Math.pow(2, i), maxNanos) / 1000;
+            }
+        }
+        return maxNanos / 1000.0;
+    }
+
+    /**
+     * @return the count, mean, percentiles and maximum in microseconds, and the non-empty buckets keyed by their
+     * upper bound in microseconds
+     */
+    Map<String, Object> summary() {
+        long count = getCount();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("meanMicros", count > 0 ? totalNanos.sum() / 1000.0 / count : 0);
+        summary.put("p50Micros", percentileMicros(.5));
+        summary.put("p90Micros", percentileMicros(.9));
+        summary.put("p99Micros", percentileMicros(.99));
+        summary.put("maxMicros", maxNanos / 1000.0);
+        Map<String, Long> buckets = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts.get(i) > 0) {
+                buckets.put("<" + Math.pow(2, i) / 1000, counts.get(i));
+            }
+        }
+        summary.put("buckets", buckets);
+        return summary;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count: %d, mean: %.1fus, p50: <%.1fus, p90: <%.1fus, p99: <%.1fus, max: %.1fus",
+                getCount(), getCount() > 0 ? totalNanos.sum() / 1000.0 / getCount() : 0, percentileMicros(.5),
+                percentileMicros(.9), percentileMicros(.99), maxNanos / 1000.0);
+    }
+}
@@ -0,0 +1,346 @@
+package play;
+
+import baseline.Scheme;
+import baseline.Strategy;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays every approach in the strategies directory against every other approach and itself, and prints the payoff
+ * matrix. Each pairing is split into chunks that run in parallel, so the run time scales with cores rather than with
+ * the number of pairings.
+ * <p>
+ * Pairings are evaluated by sampling, which draws a saved strategy from each approach and a scheme from each strategy
+ * by its average probability, or exactly, which weighs every scheme pair of every strategy pair. Confidence intervals
+ * are over samples, or over strategy pairs when exact, since the saved strategies are themselves a sample of what an
+ * approach trains.
+ * <p>
+ * Usage: java play.League [exact | samples per pairing] [seed]
+ */
+public class League {
+    private static final int SAMPLES = 1_000_000;       // Samples per pairing if not given
+    private static final int SAMPLES_PER_CHUNK = 50_000;
+    private static final double Z = 1.96;               // For 95% confidence intervals
+    private static final Gson GSON = new Gson();
+
+    public static void main(String[] args) throws Exception {
+        boolean exact = args.length > 0 && args[0].equalsIgnoreCase("exact");
+        int samples = args.length > 0 && !exact ? Integer.parseInt(args[0]) : SAMPLES;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+
+        File file = new File("strategies");
+        String[] approaches = file.list((current, name) -> new File(current, name).isDirectory());
+        if (approaches == null || approaches.length == 0) {
+            System.err.println("No approaches in " + file.getAbsolutePath());
+            return;
+        }
+        Arrays.sort(approaches);
+
+        // Read every saved strategy once
+        Approach[] corpus = new Approach[approaches.length];
+        for (int i = 0; i < approaches.length; i++) {
+            corpus[i] = new Approach(approaches[i]);
+        }
+
+        // Split every pairing into chunks. Player 1 is the row approach.
+        ExecutorService pool = Executors.newWorkStealingPool();
+        List<List<Future<Tally>>> pairings = new ArrayList<>();
+        try {
+            for (int i = 0; i < corpus.length; i++) {
+                for (int j = 0; j < corpus.length; j++) {
+                    List<Future<Tally>> chunks = new ArrayList<>();
+                    if (exact) {
+                        for (int s = 0; s < corpus[i].strategies.size(); s++) {
+                            chunks.add(pool.submit(exactChunk(corpus[i], corpus[j], s)));
+                        }
+                    } else {
+                        for (int first = 0; first < samples; first += SAMPLES_PER_CHUNK) {
+                            long chunkSeed = seed ^ ((long) i * corpus.length + j) * 0x9E3779B97F4A7C15L ^ first;
+                            chunks.add(pool.submit(sampleChunk(corpus[i], corpus[j],
+                                    Math.min(SAMPLES_PER_CHUNK, samples - first), chunkSeed)));
+                        }
+                    }
+                    pairings.add(chunks);
+                }
+            }
+
+            Tally[][] matrix = new Tally[corpus.length][corpus.length];
+            for (int p = 0; p < pairings.size(); p++) {
+                Tally tally = new Tally();
+                for (Future<Tally> chunk : pairings.get(p)) {
+                    tally.add(chunk.get());
+                }
+                matrix[p / corpus.length][p % corpus.length] = tally;
+            }
+            print(approaches, matrix, exact ? "exact over strategy pairs" : samples + " samples per pairing");
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @param player1 the row approach
+     * @param player2 the column approach
+     * @param samples the number of games to sample
+     * @param seed    the seed of the chunk
+     * @return a task that samples games between the approaches
+     */
+    private static Callable<Tally> sampleChunk(final Approach player1, final Approach player2, final int samples,
+                                               final long seed) {
+        return () -> {
+            SplittableRandom random = new SplittableRandom(seed);
+            Tally tally = new Tally();
+            for (int n = 0; n < samples; n++) {
+                int[] scheme1 = player1.getRandomScheme(random), scheme2 = player2.getRandomScheme(random);
+                int player1Score = 0, player2Score = 0;
+                for (int b = 0; b < scheme1.length; b++) {
+                    if (scheme1[b] > scheme2[b]) {
+                        player1Score += b + 1;
+                    } else if (scheme1[b] < scheme2[b]) {
+                        player2Score += b + 1;
+                    }
+                }
+                tally.add(player1Score > player2Score ? 1 : 0, player1Score < player2Score ? 1 : 0, player1Score);
+            }
+            return tally;
+        };
+    }
+
+    /**
+     * @param player1  the row approach
+     * @param player2  the column approach
+     * @param strategy the index of one of player 1's strategies
+     * @return a task that weighs every scheme pair of that strategy against every strategy of player 2
+     */
+    private static Callable<Tally> exactChunk(final Approach player1, final Approach player2, final int strategy) {
+        return () -> {
+            int[][] schemes1 = player1.strategies.get(strategy);
+            double[] probs1 = player1.probabilities.get(strategy);
+            Tally tally = new Tally();
+            for (int t = 0; t < player2.strategies.size(); t++) {
+                int[][] schemes2 = player2.strategies.get(t);
+                double[] probs2 = player2.probabilities.get(t);
+                double win = 0, loss = 0, payoff = 0;
+                for (int i = 0; i < schemes1.length; i++) {
+                    for (int j = 0; j < schemes2.length; j++) {
+                        double weight = probs1[i] * probs2[j];
+                        int player1Score = 0, player2Score = 0;
+                        for (int b = 0; b < schemes1[i].length; b++) {
+                            if (schemes1[i][b] > schemes2[j][b]) {
+                                player1Score += b + 1;
+                            } else if (schemes1[i][b] < schemes2[j][b]) {
+                                player2Score += b + 1;
+                            }
+                        }
+                        win += player1Score > player2Score ? weight : 0;
+                        loss += player1Score < player2Score ? weight : 0;
+                        payoff += weight * player1Score;
+                    }
+                }
+                tally.add(win, loss, payoff);
+            }
+            return tally;
+        };
+    }
+
+    /**
+     * Print the matrices of win percent, average payoff and utility per game of each row approach against each column
+     * approach, with the half-widths of their 95% confidence intervals.
+     *
+     * @param approaches the names of the approaches
+     * @param matrix     matrix[i][j] is the tally of approach i playing approach j
+     * @param evaluation how the pairings were evaluated
+     */
+    private static void print(String[] approaches, Tally[][] matrix, String evaluation) {
+        System.out.println("Row approach as player 1 against column approach, " + evaluation + ", +/-95% CI");
+        String[] titles = {"wins", "avg payoff", "util/game"};
+        for (int m = 0; m < titles.length; m++) {
+            System.out.println(System.lineSeparator() + titles[m]);
+            System.out.printf("%-16s", "");
+            for (String approach : approaches) {
+                System.out.printf("|%-17s", approach);
+            }
+            System.out.println();
+            for (int i = 0; i < approaches.length; i++) {
+                System.out.printf("%-16s", approaches[i]);
+                for (int j = 0; j < approaches.length; j++) {
+                    Tally tally = matrix[i][j];
+                    if (m == 0) {
+                        System.out.printf("|%6.2f%% +/-%5.2f%%", tally.winPercent(), tally.winPercentInterval());
+                    } else if (m == 1) {
+                        System.out.printf("|%6.2f +/-%6.2f ", tally.payoff(), tally.payoffInterval());
+                    } else {
+                        System.out.printf("|%6.3f +/-%6.3f ", tally.utility(), tally.utilityInterval());
+                    }
+                }
+                System.out.println();
+            }
+        }
+    }
+
+    /**
+     * The saved strategies of an approach, flattened for fast play.
+     */
+    private static class Approach {
+        private final List<int[][]> strategies = new ArrayList<>();     // The troops of every scheme of each strategy
+        private final List<double[]> probabilities = new ArrayList<>(); // The average probability of each scheme
+
+        /**
+         * @param directory the directory in strategies holding the approach's JSON files
+         */
+        Approach(String directory) throws IOException {
+            File[] files = new File("strategies", directory).listFiles((current, name) -> name.endsWith(".json"));
+            if (files == null || files.length == 0) {
+                throw new IOException("No strategies in strategies/" + directory);
+            }
+            Arrays.sort(files);
+            for (File file : files) {
+                Strategy strategy;
+                try (Reader reader = Files.newBufferedReader(Paths.get(file.getPath()), StandardCharsets.UTF_8)) {
+                    strategy = GSON.fromJson(reader, Strategy.class);
+                }
+                int[][] schemes = new int[strategy.size()][];
+                double[] probs = new double[strategy.size()];
+                for (int i = 0; i < strategy.size(); i++) {
+                    Scheme scheme = strategy.get(i);
+                    schemes[i] = new int[scheme.getNumberOfBattlefields()];
+                    for (int b = 0; b < schemes[i].length; b++) {
+                        schemes[i][b] = scheme.getBattlefieldTroops(b);
+                    }
+                    probs[i] = scheme.getAverageProb();
+                }
+                normalize(probs);
+                strategies.add(schemes);
+                probabilities.add(probs);
+            }
+        }
+
+        /**
+         * Scale probabilities to sum to 1, such as those of a strategy saved before its first game finished, or make
+         * them uniform if they are all 0.
+         *
+         * @param probs the average probability of each scheme
+         */
+        private static void normalize(double[] probs) {
+            double sum = 0;
+            for (double prob : probs) {
+                sum += prob;
+            }
+            for (int i = 0; i < probs.length; i++) {
+                probs[i] = sum > 0 ? probs[i] / sum : 1.0 / probs.length;
+            }
+        }
+
+        /**
+         * Draw a strategy uniformly, then a scheme of it by average probability.
+         *
+         * @param random the random number generator of the chunk
+         * @return the troops of the scheme
+         */
+        int[] getRandomScheme(SplittableRandom random) {
+            int strategy = random.nextInt(strategies.size());
+            int[][] schemes = strategies.get(strategy);
+            double[] probs = probabilities.get(strategy);
+            double selector = random.nextDouble();
+            for (int i = 0; i < schemes.length; i++) {
+                selector -= probs[i];
+                if (selector <= 0) {
+                    return schemes[i];
+                }
+            }
+            return schemes[schemes.length - 1];
+        }
+    }
+
+    /**
+     * Sums over observations of games between two approaches, either single games or the expectations of strategy
+     * pairs. Each observation is a win chance, a loss chance and player 1's payoff. Player 2's payoff isn't kept,
+     * since it's the payoff of the column approach as player 1 against the row approach, in the transposed cell.
+     */
+    private static class Tally {
+        private long n;
+        private double win, winSquared;
+        private double utility, utilitySquared;
+        private double payoff, payoffSquared;
+
+        /**
+         * @param win    the chance player 1 wins
+         * @param loss   the chance player 1 loses
+         * @param payoff player 1's expected payoff
+         */
+        void add(double win, double loss, double payoff) {
+            n++;
+            this.win += win;
+            winSquared += win * win;
+            utility += win - loss;
+            utilitySquared += (win - loss) * (win - loss);
+            this.payoff += payoff;
+            payoffSquared += payoff * payoff;
+        }
+
+        /**
+         * @param other the sums of another chunk of the same pairing
+         */
+        void add(Tally other) {
+            n += other.n;
+            win += other.win;
+            winSquared += other.winSquared;
+            utility += other.utility;
+            utilitySquared += other.utilitySquared;
+            payoff += other.payoff;
+            payoffSquared += other.payoffSquared;
+        }
+
+        double winPercent() {
+            return win / n * 100;
+        }
+
+        double winPercentInterval() {
+            return interval(win, winSquared) * 100;
+        }
+
+        double payoff() {
+            return payoff / n;
+        }
+
+        double payoffInterval() {
+            return interval(payoff, payoffSquared);
+        }
+
+        double utility() {
+            return utility / n;
+        }
+
+        double utilityInterval() {
+            return interval(utility, utilitySquared);
+        }
+
+        /**
+         * @param sum        the sum of the observations
+         * @param sumSquared the sum of their squares
+         * @return the half-width of the 95% confidence interval of their mean
+         */
+        private double interval(double sum, double sumSquared) {
+            if (n < 2) {
+                return 0;
+            }
+            double mean = sum / n;
+            double variance = Math.max(sumSquared / n - mean * mean, 0) * n / (n - 1);
+            return Z * Math.sqrt(variance / n);
+        }
+    }
+}
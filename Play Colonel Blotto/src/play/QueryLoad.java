@@ -0,0 +1,109 @@
+package play;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A load test of a QueryService. Every thread sends the queries in turn, each waiting for the last answer, for the
+ * given number of seconds after a warm-up, and the latencies seen by the clients are printed per query. Connections
+ * are kept alive between queries, as a tool talking to the service would.
+ * <p>
+ * Usage: java play.QueryLoad threads seconds url...
+ * <p>
+ * For example: java play.QueryLoad 4 10 http://localhost:8080/best-response?against=baseline
+ */
+public class QueryLoad {
+    private static final int WARM_UP_SECONDS = 2;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: java play.QueryLoad threads seconds url...");
+            return;
+        }
+        int threads = Integer.parseInt(args[0]);
+        int seconds = Integer.parseInt(args[1]);
+        String[] urls = Arrays.copyOfRange(args, 2, args.length);
+
+        LatencyHistogram[] latencies = new LatencyHistogram[urls.length];
+        for (int i = 0; i < urls.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+        LongAdder errors = new LongAdder();
+
+        long warmEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARM_UP_SECONDS);
+        long end = warmEnd + TimeUnit.SECONDS.toNanos(seconds);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> clients = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                final int first = t;
+                clients.add(pool.submit(() -> {
+                    byte[] buffer = new byte[8192];
+                    for (int q = first; System.nanoTime() < end; q++) {
+                        int i = q % urls.length;
+                        long start = System.nanoTime();
+                        boolean ok = query(urls[i], buffer);
+                        long latency = System.nanoTime() - start;
+                        if (start < warmEnd) {
+                            continue;
+                        }
+                        if (ok) {
+                            latencies[i].record(latency);
+                        } else {
+                            errors.increment();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> client : clients) {
+                client.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        long total = 0;
+        for (int i = 0; i < urls.length; i++) {
+            total += latencies[i].getCount();
+            System.out.println(urls[i]);
+            System.out.println("    " + latencies[i]);
+        }
+        System.out.printf("%d queries in %d s on %d threads, %.0f queries/s, %d errors%n", total, seconds, threads,
+                total / (double) seconds, errors.sum());
+    }
+
+    /**
+     * Send a query and read the whole answer.
+     *
+     * @param url    the query
+     * @param buffer receives the answer
+     * @return whether the service answered 200
+     */
+    private static boolean query(String url, byte[] buffer) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            int status = connection.getResponseCode();
+            try (InputStream in = status == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+                if (in != null) {
+                    while (in.read(buffer) != -1) {
+                        // Drain the answer so the connection can be reused
+                    }
+                }
+            }
+            return status == 200;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
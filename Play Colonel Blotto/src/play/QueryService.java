@@ -0,0 +1,509 @@
+package play;
+
+import baseline.Scheme;
+import baseline.ScoreVector;
+import baseline.Strategy;
+import baseline.WarmStart;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A long-running local service that answers questions about the saved strategies, so tooling doesn't need a new main
+ * for each one. Every approach in the strategies directory is read once at startup into a corpus, whose mixture holds
+ * the distinct schemes of all its strategies weighed as if a strategy were drawn uniformly and then a scheme by
+ * average probability, the way ColonelBlotto and League draw them. Best responses are cached and computed in the
+ * background at startup, so once warm every query is a pass over one strategy's schemes.
+ * <p>
+ * Every endpoint is a GET that answers JSON. An opponent is a corpus, such as baseline, or one strategy of it, such as
+ * baseline/3 for strategies/baseline/3.json.
+ * <ul>
+ * <li>/corpora lists the opponents and their sizes</li>
+ * <li>/best-response?against=X climbs to the allocation with the greatest expected utility it can find against X</li>
+ * <li>/score?troops=t1,t2,...&amp;against=Y is the expected utility and win, loss and tie chances of an allocation of
+ * Y's troops</li>
+ * <li>/sample?from=Z&amp;count=n draws n allocations from Z, 1 by default</li>
+ * <li>/stats is the latency histogram of each endpoint</li>
+ * </ul>
+ * The service listens on the loopback interface only. Load it with QueryLoad.
+ * <p>
+ * Usage: java play.QueryService [port] [threads]
+ */
+public class QueryService {
+    private static final int PORT = 8080;
+    private static final int RESTARTS = 8;          // Schemes of the opponent to climb from for a best response
+    private static final int MAX_STEPS = 500;       // Moves applied per climb
+    private static final int MAX_SAMPLES = 10_000;  // Allocations drawn per sample query
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final Map<String, Strategy> opponents = new LinkedHashMap<>();    // Every corpus and strategy by name
+    private final Map<String, Integer> strategyCounts = new LinkedHashMap<>(); // The number of strategies of a corpus
+    private final Map<String, CompletableFuture<Allocation>> bestResponses = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private HttpServer server;
+    private ExecutorService pool;
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        QueryService service = new QueryService(new File("strategies"));
+        service.start(port, threads);
+        System.out.println("Serving " + service.strategyCounts.keySet() + " on http://localhost:" + port
+                + " with " + threads + " threads");
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            service.stop();
+            service.latencies.forEach((endpoint, histogram) -> System.out.println(endpoint + " " + histogram));
+        }));
+    }
+
+    /**
+     * Read every approach in a strategies directory.
+     *
+     * @param directory the directory holding a directory of JSON files per approach
+     * @throws IOException if there are no approaches or a strategy can't be read
+     */
+    public QueryService(File directory) throws IOException {
+        String[] approaches = directory.list((current, name) -> new File(current, name).isDirectory());
+        if (approaches == null || approaches.length == 0) {
+            throw new IOException("No approaches in " + directory.getAbsolutePath());
+        }
+        Arrays.sort(approaches);
+
+        for (String approach : approaches) {
+            File[] files = new File(directory, approach).listFiles((current, name) -> name.endsWith(".json"));
+            if (files == null || files.length == 0) {
+                continue;
+            }
+            Arrays.sort(files);
+
+            // The mixture weighs each scheme by its share of every strategy that played it
+            List<Strategy> strategies = new ArrayList<>();
+            Map<Long, Scheme> schemes = new LinkedHashMap<>();
+            Map<Long, Double> weights = new HashMap<>();
+            for (File file : files) {
+                Strategy strategy = WarmStart.read(file.toPath());
+                normalize(strategy);
+                String name = file.getName();
+                opponents.put(approach + "/" + name.substring(0, name.length() - ".json".length()), strategy);
+                strategies.add(strategy);
+                for (Scheme scheme : strategy) {
+                    schemes.putIfAbsent(scheme.getId(), scheme);
+                    weights.merge(scheme.getId(), scheme.getAverageProb() / files.length, Double::sum);
+                }
+            }
+            Strategy mixture = new Strategy(strategies.get(0), schemes.values());
+            for (Scheme scheme : mixture) {
+                scheme.setAverageProb(weights.get(scheme.getId()));
+            }
+            opponents.put(approach, mixture);
+            strategyCounts.put(approach, files.length);
+        }
+    }
+
+    /**
+     * Start answering queries and computing the best response to every corpus in the background.
+     *
+     * @param port    the port to listen on
+     * @param threads the number of threads answering queries
+     * @throws IOException if the port can't be bound
+     */
+    public void start(int port, int threads) throws IOException {
+        // Without TCP_NODELAY the headers and body of a small answer wait out the client's delayed ACK, about 40 ms
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        pool = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(pool);
+        route("/corpora", parameters -> corpora());
+        route("/best-response", parameters -> bestResponse(parameter(parameters, "against")));
+        route("/score", parameters -> score(parseTroops(parameter(parameters, "troops")),
+                parameter(parameters, "against")));
+        route("/sample", parameters -> sample(parameter(parameters, "from"),
+                parameters.containsKey("count") ? Integer.parseInt(parameters.get("count")) : 1));
+        route("/stats", parameters -> stats());
+        server.start();
+
+        for (String corpus : strategyCounts.keySet()) {
+            bestResponseFuture(corpus);
+        }
+    }
+
+    /**
+     * Stop answering queries.
+     */
+    public void stop() {
+        server.stop(0);
+        pool.shutdownNow();
+    }
+
+    /**
+     * Answer an endpoint's queries and time them.
+     *
+     * @param path     the path of the endpoint
+     * @param endpoint answers a query from its parameters
+     */
+    private void route(String path, Endpoint endpoint) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        latencies.put(path, histogram);
+        server.createContext(path, exchange -> {
+            long start = System.nanoTime();
+            int status = 200;
+            Object answer;
+            try {
+                answer = endpoint.answer(parseQuery(exchange.getRequestURI().getRawQuery()));
+            } catch (NoSuchElementException e) {
+                status = 404;
+                answer = error(e);
+            } catch (IllegalArgumentException e) {
+                status = 400;
+                answer = error(e);
+            } catch (RuntimeException e) {
+                status = 500;
+                answer = error(e);
+            }
+            respond(exchange, status, GSON.toJson(answer));
+            histogram.record(System.nanoTime() - start);
+        });
+    }
+
+    /**
+     * @return the corpora, each with its number of strategies and distinct schemes
+     */
+    private Object corpora() {
+        Map<String, Object> corpora = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> corpus : strategyCounts.entrySet()) {
+            Map<String, Object> sizes = new LinkedHashMap<>();
+            sizes.put("strategies", corpus.getValue());
+            sizes.put("schemes", opponents.get(corpus.getKey()).size());
+            corpora.put(corpus.getKey(), sizes);
+        }
+        return corpora;
+    }
+
+    /**
+     * @param against the name of the opponent
+     * @return the best allocation found against the opponent, computing it if it isn't cached
+     */
+    private Allocation bestResponse(String against) {
+        opponent(against);
+        return bestResponseFuture(against).join();
+    }
+
+    /**
+     * @param against the name of the opponent
+     * @return the cached best response to the opponent, which may still be being computed
+     */
+    private CompletableFuture<Allocation> bestResponseFuture(String against) {
+        return bestResponses.computeIfAbsent(against,
+                name -> CompletableFuture.supplyAsync(() -> climbFromBest(opponent(name))));
+    }
+
+    /**
+     * Climb from the opponent's own schemes that do best against it to the best allocation reachable by moving
+     * troops between battlefields.
+     *
+     * @param opponent the opponent's strategy, weighed by average probability
+     * @return the best allocation found
+     */
+    private static Allocation climbFromBest(Strategy opponent) {
+        List<ScoreVector> starts = new ArrayList<>();
+        for (Scheme scheme : opponent) {
+            starts.add(new ScoreVector(new Scheme(troops(scheme)), opponent));
+        }
+        starts.sort((a, b) -> Double.compare(b.getExpectedValue(), a.getExpectedValue()));
+
+        ScoreVector best = null;
+        for (ScoreVector scores : starts.subList(0, Math.min(RESTARTS, starts.size()))) {
+            climb(scores);
+            if (best == null || scores.getExpectedValue() > best.getExpectedValue()) {
+                best = scores;
+            }
+        }
+        return new Allocation(best, opponent);
+    }
+
+    /**
+     * Climb toward a better scheme by repeatedly applying the swap or move of troops between two battlefields with the
+     * largest gain in expected value. Moves are of powers of two troops. Stops once no swap or move improves it.
+     *
+     * @param scores the scores of the scheme to climb against the opponent
+     */
+    private static void climb(ScoreVector scores) {
+        Scheme scheme = scores.getScheme();
+        int numberOfBattlefields = scheme.getNumberOfBattlefields();
+        for (int step = 0; step < MAX_STEPS; step++) {
+            double best = scores.getExpectedValue();
+            int bestTo = -1, bestFrom = -1, bestTroops = 0;
+            for (int to = 0; to < numberOfBattlefields; to++) {
+                for (int from = 0; from < numberOfBattlefields; from++) {
+                    if (to == from) {
+                        continue;
+                    }
+                    // A swap is tried once per pair and recorded as moving no troops
+                    if (to < from) {
+                        double expectedValue = scores.expectedValueAfterSwap(to, from);
+                        if (expectedValue > best) {
+                            best = expectedValue;
+                            bestTo = to;
+                            bestFrom = from;
+                            bestTroops = 0;
+                        }
+                    }
+                    for (int troops = 1; troops <= scheme.getBattlefieldTroops(from); troops *= 2) {
+                        double expectedValue = scores.expectedValueAfterMove(to, from, troops);
+                        if (expectedValue > best) {
+                            best = expectedValue;
+                            bestTo = to;
+                            bestFrom = from;
+                            bestTroops = troops;
+                        }
+                    }
+                }
+            }
+            if (bestTo == -1) {
+                return;
+            }
+            if (bestTroops == 0) {
+                scores.swapTroops(bestTo, bestFrom);
+            } else {
+                scores.moveTroops(bestTo, bestFrom, bestTroops);
+            }
+        }
+    }
+
+    /**
+     * @param troops  the number of troops on each battlefield
+     * @param against the name of the opponent
+     * @return the expected utility and win, loss and tie chances of the allocation against the opponent
+     * @throws IllegalArgumentException if the allocation doesn't have the opponent's battlefields and troops
+     */
+    private Allocation score(int[] troops, String against) {
+        Strategy opponent = opponent(against);
+        if (troops.length != opponent.get(0).getNumberOfBattlefields()) {
+            throw new IllegalArgumentException(troops.length + " battlefields, " + against + " has "
+                    + opponent.get(0).getNumberOfBattlefields());
+        }
+        long total = 0;
+        for (int troopsPlaced : troops) {
+            total += troopsPlaced;
+        }
+        if (total != opponent.getTroopCount()) {
+            throw new IllegalArgumentException(total + " troops, " + against + " has " + opponent.getTroopCount());
+        }
+        return new Allocation(new ScoreVector(new Scheme(troops), opponent), opponent);
+    }
+
+    /**
+     * Draw allocations from an opponent, a scheme at a time by average probability. Drawing from a corpus's mixture
+     * is the same as drawing one of its strategies uniformly and then a scheme of it.
+     *
+     * @param from  the name of the opponent
+     * @param count the number of allocations to draw
+     * @return the troops of each allocation
+     */
+    private int[][] sample(String from, int count) {
+        Strategy strategy = opponent(from);
+        if (count < 1 || count > MAX_SAMPLES) {
+            throw new IllegalArgumentException("count must be from 1 to " + MAX_SAMPLES);
+        }
+        int[][] samples = new int[count][];
+        for (int n = 0; n < count; n++) {
+            double selector = ThreadLocalRandom.current().nextDouble();
+            int selection = 0;
+            while (selection < strategy.size() - 1) {
+                selector -= strategy.get(selection).getAverageProb();
+                if (selector <= 0) {
+                    break;
+                }
+                selection++;
+            }
+            samples[n] = troops(strategy.get(selection));
+        }
+        return samples;
+    }
+
+    /**
+     * @return the latency summary of each endpoint
+     */
+    private Object stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        latencies.forEach((endpoint, histogram) -> stats.put(endpoint, histogram.summary()));
+        return stats;
+    }
+
+    /**
+     * @param name the name of a corpus or of one of its strategies
+     * @return the opponent's strategy
+     * @throws NoSuchElementException if there is no such opponent
+     */
+    private Strategy opponent(String name) {
+        Strategy opponent = opponents.get(name);
+        if (opponent == null) {
+            throw new NoSuchElementException("No corpus or strategy " + name);
+        }
+        return opponent;
+    }
+
+    /**
+     * Scale a strategy's average probabilities to sum to 1, or make them uniform if they are all 0, as League does.
+     *
+     * @param strategy the strategy read from JSON
+     */
+    private static void normalize(Strategy strategy) {
+        double sum = 0;
+        for (Scheme scheme : strategy) {
+            sum += scheme.getAverageProb();
+        }
+        for (Scheme scheme : strategy) {
+            scheme.setAverageProb(sum > 0 ? scheme.getAverageProb() / sum : 1.0 / strategy.size());
+        }
+    }
+
+    /**
+     * @param scheme a scheme
+     * @return a copy of the number of troops on each of its battlefields
+     */
+    private static int[] troops(Scheme scheme) {
+        int[] troops = new int[scheme.getNumberOfBattlefields()];
+        for (int b = 0; b < troops.length; b++) {
+            troops[b] = scheme.getBattlefieldTroops(b);
+        }
+        return troops;
+    }
+
+    /**
+     * @param list the number of troops on each battlefield separated by commas
+     * @return the troops
+     * @throws IllegalArgumentException if a number is malformed or negative
+     */
+    private static int[] parseTroops(String list) {
+        String[] fields = list.split(",");
+        int[] troops = new int[fields.length];
+        for (int b = 0; b < troops.length; b++) {
+            troops[b] = Integer.parseInt(fields[b].trim());
+            if (troops[b] < 0) {
+                throw new IllegalArgumentException("Negative troops " + troops[b] + " on battlefield " + b);
+            }
+        }
+        return troops;
+    }
+
+    /**
+     * @param query the raw query of a request, or null
+     * @return the decoded parameters of the query
+     */
+    private static Map<String, String> parseQuery(String query) throws UnsupportedEncodingException {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, equals), "UTF-8"),
+                        URLDecoder.decode(pair.substring(equals + 1), "UTF-8"));
+            }
+        }
+        return parameters;
+    }
+
+    /**
+     * @param parameters the parameters of a query
+     * @param name       the name of a required parameter
+     * @return its value
+     * @throws IllegalArgumentException if it is missing
+     */
+    private static String parameter(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing parameter " + name);
+        }
+        return value;
+    }
+
+    /**
+     * @param e the reason a query failed
+     * @return the answer reporting it
+     */
+    private static Map<String, String> error(Exception e) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", String.valueOf(e.getMessage()));
+        return error;
+    }
+
+    /**
+     * @param exchange the request
+     * @param status   the HTTP status of the answer
+     * @param json     the answer
+     */
+    private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * Answers the queries of one endpoint.
+     */
+    private interface Endpoint {
+        /**
+         * @param parameters the decoded parameters of the query
+         * @return the answer, which is written as JSON
+         * @throws IOException if the answer can't be computed
+         */
+        Object answer(Map<String, String> parameters) throws IOException;
+    }
+
+    /**
+     * An allocation of troops and how it does against an opponent.
+     */
+    private static class Allocation {
+        private final int[] troops;
+        private final double expectedValue;     // The expected utility against the opponent's average probabilities
+        private final double win, loss, tie;    // The chances the allocation wins, loses or ties
+
+        /**
+         * @param scores   the scores of the allocation against the opponent
+         * @param opponent the opponent's strategy
+         */
+        Allocation(ScoreVector scores, Strategy opponent) {
+            troops = troops(scores.getScheme());
+            expectedValue = scores.getExpectedValue();
+            double win = 0, loss = 0;
+            for (int j = 0; j < opponent.size(); j++) {
+                win += scores.utility(j) > 0 ? opponent.get(j).getAverageProb() : 0;
+                loss += scores.utility(j) < 0 ? opponent.get(j).getAverageProb() : 0;
+            }
+            this.win = win;
+            this.loss = loss;
+            tie = Math.max(1 - win - loss, 0);
+        }
+    }
+}
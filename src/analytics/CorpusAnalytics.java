@@ -0,0 +1,129 @@
+package analytics;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Aggregate statistics over every saved strategy of every approach: the per-battlefield troop distributions weighted
+ * by average probability, support sizes, entropy, distinct schemes, and how similar each pair of approaches is. The
+ * corpus files are streamed through a parallel pipeline that reads each one token by token into a reused buffer and
+ * folds it into mergeable sketches, so memory holds steady however many strategies there are. A table is printed and
+ * the full report is written as JSON.
+ * <p>
+ * Usage: java analytics.CorpusAnalytics [strategies] [report.json]
+ */
+public class CorpusAnalytics {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+    private static final ThreadLocal<StrategyBuffer> BUFFERS = ThreadLocal.withInitial(StrategyBuffer::new);
+
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args.length > 0 ? args[0] : "strategies");
+        String reportPath = args.length > 1 ? args[1] : "analytics.json";
+        if (!Files.isDirectory(root)) {
+            System.err.println("Usage: java analytics.CorpusAnalytics [strategies] [report.json]");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        Map<String, CorpusSummary> summaries = analyze(root);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        long strategies = 0, schemes = 0, unreadable = 0;
+        System.out.printf("%-16s|%11s|%12s|%10s|%-13s|%-15s|%s%n", "approach", "strategies", "schemes", "distinct",
+                "support 50/90", "entropy 50/90", "unreadable");
+        for (Map.Entry<String, CorpusSummary> entry : summaries.entrySet()) {
+            CorpusSummary summary = entry.getValue();
+            System.out.printf("%-16s|%11d|%12d|%10.0f|%6.0f %6.0f|%7.2f %7.2f|%d%n", entry.getKey(),
+                    summary.getStrategies(), summary.getSchemes(), summary.getDistinct().estimate(),
+                    summary.getSupport().quantile(.5), summary.getSupport().quantile(.9),
+                    summary.getEntropy().quantile(.5), summary.getEntropy().quantile(.9), summary.getUnreadable());
+            strategies += summary.getStrategies();
+            schemes += summary.getSchemes();
+            unreadable += summary.getUnreadable();
+        }
+
+        System.out.printf("%nMean troops on each battlefield%n");
+        for (Map.Entry<String, CorpusSummary> entry : summaries.entrySet()) {
+            StringBuilder means = new StringBuilder();
+            for (int b = 0; b < entry.getValue().getNumberOfBattlefields(); b++) {
+                means.append(String.format("%7.2f", entry.getValue().meanTroops(b)));
+            }
+            System.out.printf("%-16s|%s%n", entry.getKey(), means);
+        }
+
+        // Similarity is symmetric, so only the upper triangle is printed
+        Map<String, Map<String, Map<String, Double>>> similarity = new TreeMap<>();
+        System.out.printf("%nScheme Jaccard / troop overlap%n%-16s", "");
+        summaries.keySet().forEach(approach -> System.out.printf("|%-16s", approach));
+        System.out.println();
+        for (Map.Entry<String, CorpusSummary> mine : summaries.entrySet()) {
+            System.out.printf("%-16s", mine.getKey());
+            boolean upper = false;
+            for (Map.Entry<String, CorpusSummary> theirs : summaries.entrySet()) {
+                double jaccard = mine.getValue().getDistinct().jaccard(theirs.getValue().getDistinct());
+                double overlap = mine.getValue().troopOverlap(theirs.getValue());
+                Map<String, Double> pair = new LinkedHashMap<>();
+                pair.put("schemeJaccard", jaccard);
+                pair.put("troopOverlap", overlap);
+                similarity.computeIfAbsent(mine.getKey(), approach -> new TreeMap<>()).put(theirs.getKey(), pair);
+                upper |= mine.getKey().equals(theirs.getKey());
+                System.out.print(upper ? String.format("|%7.3f/%-8.3f", jaccard, overlap) : String.format("|%16s", ""));
+            }
+            System.out.println();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("directory", root.toString());
+        report.put("strategies", strategies);
+        report.put("schemes", schemes);
+        report.put("unreadable", unreadable);
+        report.put("millis", millis);
+        report.put("supportThreshold", CorpusSummary.SUPPORT_THRESHOLD);
+        Map<String, Object> approaches = new LinkedHashMap<>();
+        summaries.forEach((approach, summary) -> approaches.put(approach, summary.report()));
+        report.put("approaches", approaches);
+        report.put("similarity", similarity);
+        try (FileWriter file = new FileWriter(reportPath)) {
+            file.write(GSON.toJson(report));
+        }
+        System.out.printf("%n%d strategies, %d schemes in %d ms, report in %s%n", strategies, schemes, millis,
+                reportPath);
+    }
+
+    /**
+     * Stream every strategy's JSON file in the approach directories of root through the summaries of their approach.
+     * Each thread of the pipeline folds files into its own summaries, which are merged at the end.
+     *
+     * @param root the directory of approach directories, such as strategies
+     * @return the summary of each approach, by name
+     */
+    static Map<String, CorpusSummary> analyze(Path root) throws IOException {
+        int depth = root.getNameCount() + 2;
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            return files.parallel()
+                    .filter(file -> file.getNameCount() == depth && file.toString().endsWith(".json"))
+                    .collect(TreeMap::new, (Map<String, CorpusSummary> partial, Path file) -> {
+                        CorpusSummary summary = partial.computeIfAbsent(file.getParent().getFileName().toString(),
+                                approach -> new CorpusSummary());
+                        StrategyBuffer buffer = BUFFERS.get();
+                        try {
+                            buffer.read(file);
+                            summary.add(buffer);
+                        } catch (IOException e) {
+                            summary.addUnreadable();
+                        }
+                    }, (merged, partial) -> partial.forEach((approach, summary) ->
+                            merged.merge(approach, summary, CorpusSummary::merge)));
+        }
+    }
+}
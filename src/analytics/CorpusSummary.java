@@ -0,0 +1,269 @@
+package analytics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The aggregate statistics of the saved strategies of one approach, in memory that grows with the number of
+ * battlefields and troops but not with the number of strategies. Each strategy's average probabilities are normalized
+ * so every strategy weighs the same, falling back to equal weights if none of its schemes was played. Summaries of
+ * parts of a corpus merge into the summary of the whole.
+ */
+class CorpusSummary {
+    static final double SUPPORT_THRESHOLD = .001;   // The least probability for a scheme to count as played
+    private static final double ACCURACY = .01;
+    private static final int DISTINCT_HASHES = 1024;
+
+    private long strategies;
+    private long schemes;
+    private long unreadable;                        // Files that couldn't be parsed as a strategy
+    private double[][] troops = new double[0][];    // troops[b][t] is the weight of schemes with t troops on b
+    private final Map<String, Long> configurations = new TreeMap<>();   // Strategies by battlefields x troops
+    private final QuantileSketch schemesPerStrategy = new QuantileSketch(ACCURACY);
+    private final QuantileSketch support = new QuantileSketch(ACCURACY);
+    private final QuantileSketch entropy = new QuantileSketch(ACCURACY);
+    private final DistinctSketch distinct = new DistinctSketch(DISTINCT_HASHES);
+
+    /**
+     * Add a strategy.
+     *
+     * @param strategy the strategy's schemes, as read from its file
+     */
+    void add(StrategyBuffer strategy) {
+        int size = strategy.size();
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += Math.max(strategy.getAverageProb(i), 0);
+        }
+
+        int played = 0, troopCount = 0, battlefields = 0;
+        double bits = 0;
+        for (int i = 0; i < size; i++) {
+            double weight = sum > 0 ? Math.max(strategy.getAverageProb(i), 0) / sum : 1.0 / size;
+            if (weight >= SUPPORT_THRESHOLD) {
+                played++;
+            }
+            if (weight > 0) {
+                bits -= weight * Math.log(weight) / Math.log(2);
+            }
+
+            int[] schemeTroops = strategy.getTroops();
+            int start = strategy.getStart(i), width = strategy.getNumberOfBattlefields(i), total = 0;
+            for (int b = 0; b < width; b++) {
+                add(b, schemeTroops[start + b], weight);
+                total += schemeTroops[start + b];
+            }
+            troopCount = Math.max(troopCount, total);
+            battlefields = Math.max(battlefields, width);
+            distinct.add(DistinctSketch.hash(schemeTroops, start, width));
+        }
+
+        strategies++;
+        schemes += size;
+        configurations.merge(battlefields + "x" + troopCount, 1L, Long::sum);
+        schemesPerStrategy.add(size);
+        support.add(played);
+        entropy.add(Math.max(bits, 0));
+    }
+
+    /**
+     * @param battlefield  the index of the battlefield
+     * @param troopsPlaced the number of troops placed on it
+     * @param weight       the weight of the scheme
+     */
+    private void add(int battlefield, int troopsPlaced, double weight) {
+        if (battlefield >= troops.length) {
+            troops = Arrays.copyOf(troops, battlefield + 1);
+        }
+        double[] distribution = troops[battlefield];
+        if (distribution == null || troopsPlaced >= distribution.length) {
+            troops[battlefield] = distribution = distribution == null ? new double[troopsPlaced + 1]
+                    : Arrays.copyOf(distribution, Math.max(troopsPlaced + 1, distribution.length * 2));
+        }
+        distribution[troopsPlaced] += weight;
+    }
+
+    /**
+     * Count a file that couldn't be read.
+     */
+    void addUnreadable() {
+        unreadable++;
+    }
+
+    /**
+     * Add every strategy of another summary to this one.
+     *
+     * @param other a summary of other strategies
+     * @return this summary
+     */
+    CorpusSummary merge(CorpusSummary other) {
+        strategies += other.strategies;
+        schemes += other.schemes;
+        unreadable += other.unreadable;
+        for (int b = 0; b < other.troops.length; b++) {
+            double[] distribution = other.troops[b];
+            for (int t = distribution != null ? distribution.length - 1 : -1; t >= 0; t--) {
+                if (distribution[t] != 0) {
+                    add(b, t, distribution[t]);
+                }
+            }
+        }
+        other.configurations.forEach((configuration, count) ->
+                configurations.merge(configuration, count, Long::sum));
+        schemesPerStrategy.merge(other.schemesPerStrategy);
+        support.merge(other.support);
+        entropy.merge(other.entropy);
+        distinct.merge(other.distinct);
+        return this;
+    }
+
+    /**
+     * @return the number of strategies
+     */
+    long getStrategies() {
+        return strategies;
+    }
+
+    /**
+     * @return the number of schemes over every strategy
+     */
+    long getSchemes() {
+        return schemes;
+    }
+
+    /**
+     * @return the number of files that couldn't be read
+     */
+    long getUnreadable() {
+        return unreadable;
+    }
+
+    /**
+     * @return the most battlefields of any scheme
+     */
+    int getNumberOfBattlefields() {
+        return troops.length;
+    }
+
+    /**
+     * @return the sketch of the number of schemes with a probability of at least SUPPORT_THRESHOLD in each strategy
+     */
+    QuantileSketch getSupport() {
+        return support;
+    }
+
+    /**
+     * @return the sketch of the entropy in bits of each strategy's probabilities
+     */
+    QuantileSketch getEntropy() {
+        return entropy;
+    }
+
+    /**
+     * @return the sketch of the distinct schemes over every strategy
+     */
+    DistinctSketch getDistinct() {
+        return distinct;
+    }
+
+    /**
+     * @param battlefield the index of the battlefield
+     * @return the share of the strategies' weight at each number of troops on the battlefield, empty if no strategy
+     * has the battlefield
+     */
+    double[] distribution(int battlefield) {
+        double[] distribution = battlefield < troops.length && troops[battlefield] != null ? troops[battlefield]
+                : new double[0];
+        int length = distribution.length;
+        while (length > 0 && distribution[length - 1] == 0) {
+            length--;
+        }
+        double sum = 0;
+        for (int t = 0; t < length; t++) {
+            sum += distribution[t];
+        }
+        double[] normalized = new double[length];
+        for (int t = 0; t < length; t++) {
+            normalized[t] = distribution[t] / sum;
+        }
+        return normalized;
+    }
+
+    /**
+     * @param battlefield the index of the battlefield
+     * @return the weighted mean number of troops on the battlefield, or 0 if no strategy has it
+     */
+    double meanTroops(int battlefield) {
+        double[] distribution = distribution(battlefield);
+        double mean = 0;
+        for (int t = 0; t < distribution.length; t++) {
+            mean += t * distribution[t];
+        }
+        return mean;
+    }
+
+    /**
+     * @param distribution the share of weight at each number of troops
+     * @param fraction     the fraction of the weight at or below the quantile
+     * @return the least number of troops with at least fraction of the weight at or below it
+     */
+    private static int quantile(double[] distribution, double fraction) {
+        double seen = 0;
+        for (int t = 0; t < distribution.length; t++) {
+            seen += distribution[t];
+            if (seen >= fraction - 1e-12) {
+                return t;
+            }
+        }
+        return Math.max(distribution.length - 1, 0);
+    }
+
+    /**
+     * @param other the summary of another approach
+     * @return the mean over the battlefields both have of the overlap of their troop distributions, 1 minus their
+     * total variation distance, so 1 when the approaches place troops alike and 0 when they never agree
+     */
+    double troopOverlap(CorpusSummary other) {
+        int battlefields = Math.min(troops.length, other.troops.length);
+        double overlap = 0;
+        for (int b = 0; b < battlefields; b++) {
+            double[] mine = distribution(b), theirs = other.distribution(b);
+            for (int t = 0; t < Math.min(mine.length, theirs.length); t++) {
+                overlap += Math.min(mine[t], theirs[t]);
+            }
+        }
+        return battlefields > 0 ? overlap / battlefields : 0;
+    }
+
+    /**
+     * @return the summary in the form of the analytics report
+     */
+    Map<String, Object> report() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("strategies", strategies);
+        report.put("schemes", schemes);
+        report.put("unreadable", unreadable);
+        report.put("distinctSchemes", Math.round(distinct.estimate()));
+        report.put("configurations", configurations);
+        report.put("schemesPerStrategy", schemesPerStrategy.summary());
+        report.put("support", support.summary());
+        report.put("entropyBits", entropy.summary());
+        List<Map<String, Object>> battlefields = new ArrayList<>();
+        for (int b = 0; b < troops.length; b++) {
+            double[] distribution = distribution(b);
+            Map<String, Object> battlefield = new LinkedHashMap<>();
+            battlefield.put("mean", meanTroops(b));
+            battlefield.put("p10", quantile(distribution, .1));
+            battlefield.put("p50", quantile(distribution, .5));
+            battlefield.put("p90", quantile(distribution, .9));
+            battlefield.put("distribution", distribution);
+            battlefields.add(battlefield);
+        }
+        report.put("battlefields", battlefields);
+        return report;
+    }
+}
@@ -0,0 +1,117 @@
+package analytics;
+
+import java.util.Arrays;
+
+/**
+ * A mergeable sketch of a set of schemes that estimates how many are distinct and how much two sets overlap, by
+ * keeping the k smallest distinct hashes of the schemes added. With k hashes the estimates have a relative standard
+ * error of about 1/sqrt(k), in memory that doesn't grow with the set. Sketches of the same k merge by keeping the k
+ * smallest hashes of both, which is the sketch of the union.
+ */
+public class DistinctSketch {
+    private final int k;
+    private final long[] hashes;    // The smallest distinct hashes, ascending, in 63 bits so they compare as longs
+    private int size;
+
+    /**
+     * Construct an empty sketch.
+     *
+     * @param k the number of hashes to keep
+     */
+    public DistinctSketch(int k) {
+        this.k = k;
+        hashes = new long[k];
+    }
+
+    /**
+     * @param troops               holds the number of troops on each battlefield of a scheme
+     * @param start                the index in troops of the scheme's first battlefield
+     * @param numberOfBattlefields the number of battlefields of the scheme
+     * @return the 63-bit hash of the scheme
+     */
+    public static long hash(int[] troops, int start, int numberOfBattlefields) {
+        long hash = numberOfBattlefields;
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            hash = mix(hash * 0x9E3779B97F4A7C15L + troops[start + b]);
+        }
+        return hash >>> 1;
+    }
+
+    /**
+     * @param x the value to hash
+     * @return the SplitMix64 finalizer of x
+     */
+    private static long mix(long x) {
+        x = (x ^ x >>> 30) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ x >>> 27) * 0x94D049BB133111EBL;
+        return x ^ x >>> 31;
+    }
+
+    /**
+     * @param hash the hash of a scheme from hash
+     */
+    public void add(long hash) {
+        if (size == k && hash >= hashes[k - 1]) {
+            return;
+        }
+        int index = Arrays.binarySearch(hashes, 0, size, hash);
+        if (index >= 0) {
+            return;
+        }
+        index = -index - 1;
+        int moved = Math.min(size, k - 1) - index;
+        System.arraycopy(hashes, index, hashes, index + 1, moved);
+        hashes[index] = hash;
+        size = Math.min(size + 1, k);
+    }
+
+    /**
+     * Add every scheme of another sketch to this one.
+     *
+     * @param other a sketch of the same k
+     * @throws IllegalArgumentException if the sketches keep different numbers of hashes
+     */
+    public void merge(DistinctSketch other) {
+        if (other.k != k) {
+            throw new IllegalArgumentException("Can't merge sketches of " + k + " and " + other.k + " hashes");
+        }
+        for (int i = 0; i < other.size; i++) {
+            add(other.hashes[i]);
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct schemes added, exact while fewer than k are
+     */
+    public double estimate() {
+        if (size < k) {
+            return size;
+        }
+        // The kth smallest of n uniform hashes is near k / n of the range
+        return (k - 1) / (hashes[k - 1] / (double) Long.MAX_VALUE);
+    }
+
+    /**
+     * @param other a sketch of the same k
+     * @return the estimated Jaccard similarity of the two sets, the share of the distinct schemes of either that are
+     * in both, or 0 if both are empty
+     */
+    public double jaccard(DistinctSketch other) {
+        DistinctSketch union = new DistinctSketch(k);
+        union.merge(this);
+        union.merge(other);
+        int both = 0;
+        for (int i = 0; i < union.size; i++) {
+            if (Arrays.binarySearch(hashes, 0, size, union.hashes[i]) >= 0
+                    && Arrays.binarySearch(other.hashes, 0, other.size, union.hashes[i]) >= 0) {
+                both++;
+            }
+        }
+        return union.size > 0 ? both / (double) union.size : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "DistinctSketch{k=" + k + ", size=" + size + ", estimate=" + estimate() + '}';
+    }
+}
@@ -0,0 +1,172 @@
+package analytics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A mergeable sketch of the quantiles of non-negative values, in the style of DDSketch. Bucket i counts the values in
+ * (gamma^(i-1), gamma^i], so every quantile is within a relative error of the sketch's accuracy of a value that was
+ * added, however many values there are. Sketches of the same accuracy merge by adding bucket counts, so partial
+ * sketches built in parallel give the same quantiles as one built over every value. Zero is counted apart, since it
+ * has no logarithm.
+ */
+public class QuantileSketch {
+    private final double accuracy;
+    private final double logGamma;      // The log of the ratio between consecutive bucket bounds
+    private long[] counts = new long[0];
+    private int offset;                 // counts[i] is bucket i + offset
+    private long zeroCount;
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Construct an empty sketch.
+     *
+     * @param accuracy the relative error of quantiles, such as .01
+     */
+    public QuantileSketch(double accuracy) {
+        this.accuracy = accuracy;
+        logGamma = Math.log((1 + accuracy) / (1 - accuracy));
+    }
+
+    /**
+     * @param value the value to add, at least 0
+     * @throws IllegalArgumentException if value is negative or not a number
+     */
+    public void add(double value) {
+        if (!(value >= 0)) {
+            throw new IllegalArgumentException("Can't sketch " + value);
+        }
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        if (value == 0) {
+            zeroCount++;
+            return;
+        }
+        int bucket = (int) Math.ceil(Math.log(value) / logGamma);
+        grow(bucket, bucket);
+        counts[bucket - offset]++;
+    }
+
+    /**
+     * Add every value of another sketch to this one.
+     *
+     * @param other a sketch of the same accuracy
+     * @throws IllegalArgumentException if the accuracies differ
+     */
+    public void merge(QuantileSketch other) {
+        if (other.accuracy != accuracy) {
+            throw new IllegalArgumentException("Can't merge sketches of accuracy " + accuracy + " and "
+                    + other.accuracy);
+        }
+        if (other.counts.length > 0) {
+            grow(other.offset, other.offset + other.counts.length - 1);
+            for (int i = 0; i < other.counts.length; i++) {
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Widen the buckets to hold first through last.
+     *
+     * @param first the lowest bucket to hold
+     * @param last  the highest bucket to hold
+     */
+    private void grow(int first, int last) {
+        if (counts.length == 0) {
+            counts = new long[last - first + 1];
+            offset = first;
+            return;
+        }
+        int low = Math.min(first, offset), high = Math.max(last, offset + counts.length - 1);
+        if (low == offset && high == offset + counts.length - 1) {
+            return;
+        }
+        long[] grown = new long[high - low + 1];
+        System.arraycopy(counts, 0, grown, offset - low, counts.length);
+        counts = grown;
+        offset = low;
+    }
+
+    /**
+     * @param fraction the fraction of values at or below the quantile, such as .5 for the median
+     * @return the quantile to within the sketch's relative accuracy, or 0 if the sketch is empty
+     */
+    public double quantile(double fraction) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) (fraction * (count - 1)), seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // The middle of the bucket in relative terms, clamped to the values seen
+                double value = 2 * Math.exp((i + offset) * logGamma) / (1 + Math.exp(logGamma));
+                return Math.max(min, Math.min(max, value));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return the number of values added
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the mean of the values added, or 0 if none were
+     */
+    public double getMean() {
+        return count > 0 ? sum / count : 0;
+    }
+
+    /**
+     * @return the smallest value added, or 0 if none were
+     */
+    public double getMin() {
+        return count > 0 ? min : 0;
+    }
+
+    /**
+     * @return the largest value added, or 0 if none were
+     */
+    public double getMax() {
+        return count > 0 ? max : 0;
+    }
+
+    /**
+     * @return the count, mean, extremes and quartiles, and the 90th and 99th percentiles
+     */
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", count);
+        summary.put("mean", getMean());
+        summary.put("min", getMin());
+        for (double fraction : new double[]{.25, .5, .75, .9, .99}) {
+            summary.put("p" + Math.round(fraction * 100), quantile(fraction));
+        }
+        summary.put("max", getMax());
+        return summary;
+    }
+
+    @Override
+    public String toString() {
+        return "QuantileSketch{accuracy=" + accuracy + ", buckets=" + counts.length + ", zeroCount=" + zeroCount
+                + ", summary=" + summary() + '}';
+    }
+}
@@ -0,0 +1,122 @@
+package analytics;
+
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The schemes of one saved strategy, read token by token from its JSON file into flat arrays that are reused for the
+ * next file. No Strategy or Scheme is built, so reading a corpus allocates no more than its largest strategy needs.
+ */
+class StrategyBuffer {
+    private int[] troops = new int[1024];           // The troops of every scheme, one after another
+    private int[] starts = new int[129];            // Scheme i's troops start at starts[i] and end at starts[i + 1]
+    private double[] averageProbs = new double[128];
+    private int size;
+
+    /**
+     * Read a strategy in the form saved under strategies/, {"strategy":[{"scheme":[troops...],"averageProb":p},...]},
+     * skipping any other fields.
+     *
+     * @param file the strategy's JSON file
+     * @throws IOException if the file can't be read or isn't JSON of that form
+     */
+    void read(Path file) throws IOException {
+        size = 0;
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+             JsonReader in = new JsonReader(reader)) {
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!in.nextName().equals("strategy")) {
+                    in.skipValue();
+                    continue;
+                }
+                in.beginArray();
+                while (in.hasNext()) {
+                    readScheme(in);
+                }
+                in.endArray();
+            }
+            in.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            throw new IOException(file + " isn't a strategy: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param in the reader, at the start of a scheme's object
+     */
+    private void readScheme(JsonReader in) throws IOException {
+        if (size + 1 == averageProbs.length) {
+            averageProbs = Arrays.copyOf(averageProbs, averageProbs.length * 2);
+            starts = Arrays.copyOf(starts, starts.length * 2);
+        }
+        int end = starts[size];
+        double averageProb = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (name.equals("scheme")) {
+                end = starts[size];
+                in.beginArray();
+                while (in.hasNext()) {
+                    if (end == troops.length) {
+                        troops = Arrays.copyOf(troops, troops.length * 2);
+                    }
+                    troops[end++] = in.nextInt();
+                }
+                in.endArray();
+            } else if (name.equals("averageProb")) {
+                averageProb = in.nextDouble();
+            } else {
+                in.skipValue();
+            }
+        }
+        in.endObject();
+        averageProbs[size] = averageProb;
+        starts[++size] = end;
+    }
+
+    /**
+     * @return the number of schemes
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the troops of every scheme, one after another, with scheme i's from getStart(i)
+     */
+    int[] getTroops() {
+        return troops;
+    }
+
+    /**
+     * @param i the index of the scheme
+     * @return the index in getTroops of the scheme's first battlefield
+     */
+    int getStart(int i) {
+        return starts[i];
+    }
+
+    /**
+     * @param i the index of the scheme
+     * @return the number of battlefields of the scheme
+     */
+    int getNumberOfBattlefields(int i) {
+        return starts[i + 1] - starts[i];
+    }
+
+    /**
+     * @param i the index of the scheme
+     * @return the average probability of the scheme as saved
+     */
+    double getAverageProb(int i) {
+        return averageProbs[i];
+    }
+}
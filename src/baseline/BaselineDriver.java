@@ -21,20 +21,122 @@ public class BaselineDriver {
         final boolean write = false;
         Gson gson = new Gson();
 
+        // Optionally warm start each player from a saved strategy or a corpus directory, - for random schemes
+        WarmStart player1Start = args.length > 0 && !args[0].equals("-")
+                ? new WarmStart(args[0], true, EA.MUTATION_RATE) : null;
+        WarmStart player2Start = args.length > 1 && !args[1].equals("-")
+                ? new WarmStart(args[1], true, EA.MUTATION_RATE) : null;
+
+        RunConfig config = new RunConfig(NUMBER_OF_BATTLEFIELDS, GAMES, ROUNDS_PER_GAME, STRATEGY_SIZE, 100,
+                EA.ELITISM_RATE, EA.MUTATION_RATE);
+
         for (int s = 0; s < (write ? 100 : 1); s++) {
-            Strategy player1 = new Strategy(NUMBER_OF_BATTLEFIELDS, STRATEGY_SIZE, 100);
-            Strategy player2 = new Strategy(NUMBER_OF_BATTLEFIELDS, STRATEGY_SIZE, 100);
+            // Resume the run that was interrupted, if any
+            try (Checkpointer checkpointer = new Checkpointer("checkpoints/baseline.bin", "baseline " + config,
+                    Checkpointer.INTERVAL)) {
+                RunOptions options = new RunOptions();
+                options.setVerbose(!write);
+                options.setCheckpointer(checkpointer);
+                options.setPlayer1Start(player1Start);
+                options.setPlayer2Start(player2Start);
+                RunResult result = run(config, System.nanoTime(), options);
+
+                if (write) {
+                    // Save strategy to JSON file
+                    System.out.print("\r" + s);
+                    try (FileWriter file = new FileWriter("strategies/baseline/" + s + ".json")) {
+                        file.write(gson.toJson(result.getPlayer1()));
+                    }
+                } else {
+                    System.out.println("\nPlayer1 avg util: " + result.getAvgUtilPerGame1());
+                    System.out.println("Player2 avg util: " + -result.getAvgUtilPerGame1());
+                }
+                checkpointer.finish();
+            }
+        }
 
-            double avgUtilPerGame1 = 0;
-            double avgUtilPerGame2 = 0;
-            double p1WinPercent = 0;
+        // The cache is shared by every run, so its counts cover them all
+        if (PayoffCache.ENABLED) {
+            System.out.println(System.lineSeparator() + "Payoff cache: " + PayoffCache.SHARED);
+        }
+    }
 
-            // Terminates once at least GAMES games are played, p1 win percent is 75%-90% and all schemes have a positive prob.
-            for (int g = 1; g <= GAMES || p1WinPercent > .9 || p1WinPercent < .75 || player1.hasZeroProbabilities(); g++) {
-                int player1Wins = 0, player2Wins = 0;
-                double p1TotalUtil = 0, p2TotalUtil = 0;
+    /**
+     * Play games until player 1's strategy meets the termination checks.
+     *
+     * @param config  the parameters of the run
+     * @param seed    the seed for the random number generator of the current thread
+     * @param verbose whether to print the result of every game
+     * @return the final strategies and how long the run took
+     */
+    public static RunResult run(RunConfig config, long seed, boolean verbose) throws Exception {
+        RunOptions options = new RunOptions();
+        options.setVerbose(verbose);
+        return run(config, seed, options);
+    }
+
+    /**
+     * Play games until player 1's strategy meets the termination checks.
+     *
+     * @param config  the parameters of the run
+     * @param seed    the seed for the random number generator of the current thread
+     * @param options whether to print every game, checkpoint, warm start and publish snapshots
+     * @return the final strategies and how long the run took
+     */
+    public static RunResult run(RunConfig config, long seed, RunOptions options) throws Exception {
+        Checkpointer checkpointer = options.getCheckpointer();
+        SnapshotFeed snapshotFeed = options.getSnapshotFeed();
+        TraceRecorder trace = options.getTraceRecorder();
+        Solver solver = options.getSolver();
+        DominancePruner pruner = options.getPruner();
+        ParallelGame parallelGame = options.getParallelGame();
+        NoveltyArchive archive = options.getNoveltyArchive();
+
+        long start = System.currentTimeMillis();
+        EA.seed(seed);
+        Strategy player1 = options.getPlayer1Start() != null
+                ? options.getPlayer1Start().strategy(config.getNumberOfBattlefields(), config.getStrategySize(), config.getTroopCount())
+                : new Strategy(config.getNumberOfBattlefields(), config.getStrategySize(), config.getTroopCount());
+        Strategy player2 = options.getPlayer2Start() != null
+                ? options.getPlayer2Start().strategy(config.getNumberOfBattlefields(), config.getStrategySize(), config.getTroopCount())
+                : new Strategy(config.getNumberOfBattlefields(), config.getStrategySize(), config.getTroopCount());
+
+        double avgUtilPerGame1 = 0;
+        double p1WinPercent = 0;
+        int g = 1;
+
+        // Continue from the last checkpoint of the run, if there is one
+        Checkpoint checkpoint = checkpointer != null ? checkpointer.load() : null;
+        if (checkpoint != null) {
+            g = checkpoint.getGame() + 1;
+            player1 = checkpoint.getPlayer1();
+            player2 = checkpoint.getPlayer2();
+            avgUtilPerGame1 = checkpoint.getAvgUtilPerGame1();
+            p1WinPercent = checkpoint.getP1WinPercent();
+        }
+
+        // Terminates once at least GAMES games are played, p1 win percent is 75%-90% and all schemes have a positive prob.
+        for (; g <= config.getGames() || p1WinPercent > .9 || p1WinPercent < .75 || player1.hasZeroProbabilities(); g++) {
+            int player1Wins = 0, player2Wins = 0;
+            double p1TotalUtil = 0, p2TotalUtil = 0;
+
+            // Replace the dominated schemes of both players before they learn
+            if (pruner != null) {
+                pruner.prune(player1, player2);
+            }
 
-                for (int r = 0; r < ROUNDS_PER_GAME; r++) {
+            if (trace != null) {
+                trace.recordStrategies(g, player1, player2);
+            }
+
+            if (parallelGame != null) {
+                parallelGame.play(player1, player2, config.getRoundsPerGame(), solver);
+                player1Wins = parallelGame.getPlayer1Wins();
+                player2Wins = parallelGame.getPlayer2Wins();
+                p1TotalUtil = parallelGame.getPlayer1Utility();
+                p2TotalUtil = -p1TotalUtil;
+            } else {
+                for (int r = 0; r < config.getRoundsPerGame(); r++) {
                     // Get a randomly chosen scheme for each player
                     Scheme player1Scheme = player1.getRandom();
                     Scheme player2Scheme = player2.getRandom();
@@ -51,54 +153,64 @@ public class BaselineDriver {
                         player2Wins++;
                     }
 
-                    player1.update(player1Scheme, player2Scheme, player1Util);
-                    player2.update(player2Scheme, player1Scheme, player2Util);
-                }
+                    player1.update(player1Scheme, player2Scheme, player1Util, solver);
+                    player2.update(player2Scheme, player1Scheme, player2Util, solver);
 
-                // Calculate expected value for all the schemes for both players
-                EA.evaluateFitness(player1, player2);
+                    if (trace != null) {
+                        trace.recordRound(g, r, player1Scheme, player2Scheme, player1Util);
+                        trace.recordProbabilities(g, r, player1, player2);
+                    }
 
-                avgUtilPerGame1 += (p1TotalUtil / ROUNDS_PER_GAME);
-                avgUtilPerGame2 += (p2TotalUtil / ROUNDS_PER_GAME);
+                    if (snapshotFeed != null && snapshotFeed.isDue(r + 1)) {
+                        snapshotFeed.publish(g, r + 1, player1, player2);
+                    }
+                }
+            }
 
-                Strategy winner = p1TotalUtil > p2TotalUtil ? player1 : player2;
-                Strategy loser = p1TotalUtil > p2TotalUtil ? player2 : player1;
+            // Calculate expected value for all the schemes for both players
+            EA.evaluateFitness(player1, player2);
 
-                p1WinPercent = player1Wins / (double) ROUNDS_PER_GAME;
+            // Publish the average strategies of the game before the loser is replaced
+            if (snapshotFeed != null) {
+                snapshotFeed.publish(g, config.getRoundsPerGame(), player1, player2);
+            }
 
-                if (!write) {
-                    System.out.println("Game " + g);
-                    System.out.println("Player1 wins: " + player1Wins + ", Player2 wins: " + player2Wins);
-                    System.out.println("Player1 utility per game: " + (p1TotalUtil / ROUNDS_PER_GAME) + ", Player2 utility per game: " + (p2TotalUtil / ROUNDS_PER_GAME));
+            avgUtilPerGame1 += (p1TotalUtil / config.getRoundsPerGame());
 
-                    System.out.println("Player " + (p1TotalUtil > p2TotalUtil ? 1 : 2) + " Strategy:");
-                    System.out.println(winner);
-                    System.out.println("Player " + (p1TotalUtil > p2TotalUtil ? 2 : 1) + " Strategy:");
-                    System.out.println(loser);
-                }
+            Strategy winner = p1TotalUtil > p2TotalUtil ? player1 : player2;
+            Strategy loser = p1TotalUtil > p2TotalUtil ? player2 : player1;
 
-                // Generate new schemes for loser
-                if (p1TotalUtil > p2TotalUtil) {
-                    player2 = new Strategy(NUMBER_OF_BATTLEFIELDS, STRATEGY_SIZE, 100);
-                } else {
-                    player1 = EA.evolve(loser, STRATEGY_SIZE);
-                }
+            p1WinPercent = player1Wins / (double) config.getRoundsPerGame();
+
+            if (options.isVerbose()) {
+                System.out.println("Game " + g);
+                System.out.println("Player1 wins: " + player1Wins + ", Player2 wins: " + player2Wins);
+                System.out.println("Player1 utility per game: " + (p1TotalUtil / config.getRoundsPerGame()) + ", Player2 utility per game: " + (p2TotalUtil / config.getRoundsPerGame()));
 
-                // Reset the winner's strategy
-                winner.resetStrategy();
+                System.out.println("Player " + (p1TotalUtil > p2TotalUtil ? 1 : 2) + " Strategy:");
+                System.out.println(winner);
+                System.out.println("Player " + (p1TotalUtil > p2TotalUtil ? 2 : 1) + " Strategy:");
+                System.out.println(loser);
             }
 
-            if (write) {
-                // Save strategy to JSON file
-                System.out.print("\r" + s);
-                try (FileWriter file = new FileWriter("strategies/baseline/" + s + ".json")) {
-                    file.write(gson.toJson(player1));
-                }
+            // Generate new schemes for loser
+            if (p1TotalUtil > p2TotalUtil) {
+                player2 = new Strategy(config.getNumberOfBattlefields(), config.getStrategySize(), config.getTroopCount());
             } else {
-                System.out.println("\nPlayer1 avg util: " + avgUtilPerGame1 / GAMES);
-                System.out.println("Player2 avg util: " + avgUtilPerGame2 / GAMES);
+                player1 = EA.evolve(loser, config.getStrategySize(), config.getElitismRate(), config.getMutationRate(),
+                        archive);
+            }
+
+            // Reset the winner's strategy
+            winner.resetStrategy();
+
+            if (checkpointer != null && checkpointer.isDue(g)) {
+                checkpointer.save(g, avgUtilPerGame1, p1WinPercent, p1TotalUtil, p2TotalUtil, player1, player2);
             }
         }
+
+        return new RunResult(player1, player2, g - 1, System.currentTimeMillis() - start,
+                avgUtilPerGame1 / config.getGames(), true);
     }
 
     /**
@@ -109,8 +221,12 @@ public class BaselineDriver {
      * @return the values 1, -1, or 0 if player 1 wins, loses, or ties, respectively
      */
     public static int utility(Scheme player1Scheme, Scheme player2Scheme) {
+        if (PayoffCache.ENABLED) {
+            return PayoffCache.SHARED.utility(player1Scheme, player2Scheme);
+        }
+
         int player1Score = 0, player2Score = 0;
-        for (int b = 0; b < NUMBER_OF_BATTLEFIELDS; b++) {
+        for (int b = 0; b < player1Scheme.getNumberOfBattlefields(); b++) {
             if (player1Scheme.getBattlefieldTroops(b) > player2Scheme.getBattlefieldTroops(b)) {
                 player1Score += b + 1;
             } else if (player1Scheme.getBattlefieldTroops(b) < player2Scheme.getBattlefieldTroops(b)) {
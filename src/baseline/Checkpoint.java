@@ -0,0 +1,86 @@
+package baseline;
+
+/**
+ * The state of a run at the end of a game, read back by a Checkpointer. Restoring a checkpoint also restores the
+ * random number generator of the current thread, so the run continues exactly as it would have.
+ */
+public class Checkpoint {
+    private final int game;                 // The last game played
+    private final double avgUtilPerGame1;   // Player 1's utility per game summed so far
+    private final double p1WinPercent;      // Player 1's win percent in the last game
+    private final double p1TotalUtil;       // Player 1's total utility in the last game
+    private final double p2TotalUtil;       // Player 2's total utility in the last game
+    private final Strategy player1;
+    private final Strategy player2;
+
+    /**
+     * Construct the state of a run.
+     *
+     * @param game            the last game played
+     * @param avgUtilPerGame1 player 1's utility per game summed so far
+     * @param p1WinPercent    player 1's win percent in the last game
+     * @param p1TotalUtil     player 1's total utility in the last game
+     * @param p2TotalUtil     player 2's total utility in the last game
+     * @param player1         player 1's strategy for the next game
+     * @param player2         player 2's strategy for the next game
+     */
+    Checkpoint(int game, double avgUtilPerGame1, double p1WinPercent, double p1TotalUtil, double p2TotalUtil,
+               Strategy player1, Strategy player2) {
+        this.game = game;
+        this.avgUtilPerGame1 = avgUtilPerGame1;
+        this.p1WinPercent = p1WinPercent;
+        this.p1TotalUtil = p1TotalUtil;
+        this.p2TotalUtil = p2TotalUtil;
+        this.player1 = player1;
+        this.player2 = player2;
+    }
+
+    /**
+     * @return the last game played
+     */
+    public int getGame() {
+        return game;
+    }
+
+    /**
+     * @return player 1's utility per game summed so far
+     */
+    public double getAvgUtilPerGame1() {
+        return avgUtilPerGame1;
+    }
+
+    /**
+     * @return player 1's win percent in the last game
+     */
+    public double getP1WinPercent() {
+        return p1WinPercent;
+    }
+
+    /**
+     * @return player 1's total utility in the last game
+     */
+    public double getP1TotalUtil() {
+        return p1TotalUtil;
+    }
+
+    /**
+     * @return player 2's total utility in the last game
+     */
+    public double getP2TotalUtil() {
+        return p2TotalUtil;
+    }
+
+    /**
+     * @return player 1's strategy for the next game
+     */
+    public Strategy getPlayer1() {
+        return player1;
+    }
+
+    /**
+     * @return player 2's strategy for the next game
+     */
+    public Strategy getPlayer2() {
+        return player2;
+    }
+}
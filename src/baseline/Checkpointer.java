@@ -0,0 +1,180 @@
+package baseline;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Periodic binary checkpoints of a run. The state is encoded on the run's thread at the end of a game, which only
+ * copies it, and is written to disk on a background thread: first to a temporary file that is synced, then moved over
+ * the checkpoint so a crash leaves either the old checkpoint or the new one. If the disk falls behind, only the latest
+ * state is written.
+ */
+public class Checkpointer implements AutoCloseable {
+    public static final int INTERVAL = 25;  // The number of games between checkpoints
+    private static final int MAGIC = 0x45414244;
+
+    private final Path path;
+    private final Path temporary;
+    private final String run;               // Identifies the driver and parameters the checkpoint belongs to
+    private final int interval;
+    private final AtomicReference<byte[]> pending = new AtomicReference<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile IOException failure;   // The last error of the background thread
+
+    /**
+     * Construct checkpoints of a run.
+     *
+     * @param path     the path of the checkpoint
+     * @param run      identifies the driver and parameters of the run, such as the driver's package and RunConfig
+     * @param interval the number of games between checkpoints
+     */
+    public Checkpointer(String path, String run, int interval) {
+        this.path = Paths.get(path);
+        this.temporary = Paths.get(path + ".tmp");
+        this.run = run;
+        this.interval = interval;
+    }
+
+    /**
+     * Read the checkpoint, if there is one for this run, and restore the random number generator of the current thread.
+     *
+     * @return the state of the run, or null if there is no checkpoint or it belongs to another run
+     */
+    public Checkpoint load() throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || !in.readUTF().equals(run)) {
+                return null;
+            }
+            byte[] randomBytes = new byte[in.readInt()];
+            in.readFully(randomBytes);
+            Checkpoint checkpoint = new Checkpoint(in.readInt(), in.readDouble(), in.readDouble(), in.readDouble(),
+                    in.readDouble(), Strategy.read(in), Strategy.read(in));
+
+            try (ObjectInputStream random = new ObjectInputStream(new ByteArrayInputStream(randomBytes))) {
+                Scratch.get().random = (Random) random.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Malformed random number generator in " + path, e);
+            }
+            return checkpoint;
+        }
+    }
+
+    /**
+     * @param game the game just played
+     * @return whether to checkpoint after it
+     */
+    public boolean isDue(int game) {
+        return game % interval == 0;
+    }
+
+    /**
+     * Copy the state of the run and write it in the background.
+     *
+     * @param game            the game just played
+     * @param avgUtilPerGame1 player 1's utility per game summed so far
+     * @param p1WinPercent    player 1's win percent in the game just played
+     * @param p1TotalUtil     player 1's total utility in the game just played
+     * @param p2TotalUtil     player 2's total utility in the game just played
+     * @param player1         player 1's strategy for the next game
+     * @param player2         player 2's strategy for the next game
+     * @throws IOException if an earlier checkpoint failed to write
+     */
+    public void save(int game, double avgUtilPerGame1, double p1WinPercent, double p1TotalUtil, double p2TotalUtil,
+                     Strategy player1, Strategy player2) throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+
+        ByteArrayOutputStream randomBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream random = new ObjectOutputStream(randomBytes)) {
+            random.writeObject(EA.random());
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeUTF(run);
+        out.writeInt(randomBytes.size());
+        randomBytes.writeTo(out);
+        out.writeInt(game);
+        out.writeDouble(avgUtilPerGame1);
+        out.writeDouble(p1WinPercent);
+        out.writeDouble(p1TotalUtil);
+        out.writeDouble(p2TotalUtil);
+        player1.write(out);
+        player2.write(out);
+        out.flush();
+
+        // Only start a write if the last one has taken its state
+        if (pending.getAndSet(bytes.toByteArray()) == null) {
+            writer.execute(this::writePending);
+        }
+    }
+
+    /**
+     * Wait for the last checkpoint to be written and delete it, once the run no longer needs it.
+     */
+    public void finish() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    /**
+     * Wait for the last checkpoint to be written.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Write the latest state to the temporary file and move it over the checkpoint.
+     */
+    private void writePending() {
+        byte[] bytes = pending.getAndSet(null);
+        try {
+            Path parent = path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+        } catch (IOException e) {
+            failure = e;
+            return;
+        }
+        try (FileOutputStream out = new FileOutputStream(temporary.toFile())) {
+            out.write(bytes);
+            out.getFD().sync();
+        } catch (IOException e) {
+            failure = e;
+            return;
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+}
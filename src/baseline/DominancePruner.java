@@ -0,0 +1,183 @@
+package baseline;
+
+import java.util.Arrays;
+
+/**
+ * Iterated elimination of dominated schemes from both players' strategies, judged on the payoff matrix of one
+ * strategy against the other. Eliminated schemes are replaced in place by offspring of the surviving ones, so regret
+ * matching doesn't spend a game driving them to zero. Prune at the start of a game, before the learning state builds.
+ */
+public class DominancePruner {
+    private static final int ATTEMPTS = 100;    // Offspring to try before falling back to a random scheme
+
+    private final boolean weak;                 // Whether to eliminate weakly rather than strictly dominated schemes
+    private final double mutationRate;          // The rate to mutate an offspring
+
+    /**
+     * Construct a pruner.
+     *
+     * @param weak         whether to eliminate weakly rather than strictly dominated schemes
+     * @param mutationRate the rate to mutate an offspring
+     */
+    public DominancePruner(boolean weak, double mutationRate) {
+        this.weak = weak;
+        this.mutationRate = mutationRate;
+    }
+
+    /**
+     * Eliminate dominated schemes from both strategies until none are left, then replace them with offspring.
+     *
+     * @param player1 the strategy of player 1
+     * @param player2 the strategy of player 2
+     * @return the number of schemes replaced
+     */
+    public int prune(Strategy player1, Strategy player2) {
+        int rows = player1.size(), columns = player2.size();
+
+        // payoffs[i * columns + j] is the utility of player 1's scheme i against player 2's scheme j
+        int[] payoffs = new int[rows * columns];
+        int[] theirTroops = new int[player2.get(0).getNumberOfBattlefields()];
+        int[] utilities = new int[rows];
+        for (int j = 0; j < columns; j++) {
+            for (int b = 0; b < theirTroops.length; b++) {
+                theirTroops[b] = player2.get(j).getBattlefieldTroops(b);
+            }
+            player1.utilities(theirTroops, utilities);
+            for (int i = 0; i < rows; i++) {
+                payoffs[i * columns + j] = utilities[i];
+            }
+        }
+
+        boolean[] rowAlive = alive(rows), columnAlive = alive(columns);
+        boolean eliminated;
+        do {
+            eliminated = eliminate(payoffs, rows, columns, rowAlive, columnAlive, 1, columns, 1);
+            eliminated |= eliminate(payoffs, columns, rows, columnAlive, rowAlive, columns, 1, -1);
+        } while (eliminated);
+
+        return replace(player1, rowAlive) + replace(player2, columnAlive);
+    }
+
+    /**
+     * Eliminate the schemes of one player that are dominated by another of its surviving schemes, over the surviving
+     * schemes of the opponent. The matrix is read through strides so the same pass serves both players.
+     *
+     * @param payoffs        the payoff matrix of player 1
+     * @param size           the number of schemes of this player
+     * @param opponentSize   the number of schemes of the opponent
+     * @param alive          whether each scheme of this player survives, updated in place
+     * @param opponentAlive  whether each scheme of the opponent survives
+     * @param opponentStride the distance in payoffs between consecutive opponent schemes
+     * @param stride         the distance in payoffs between consecutive schemes of this player
+     * @param sign           1 for player 1, -1 for player 2
+     * @return whether any scheme was eliminated
+     */
+    private boolean eliminate(int[] payoffs, int size, int opponentSize, boolean[] alive, boolean[] opponentAlive,
+                              int opponentStride, int stride, int sign) {
+        boolean eliminated = false;
+        for (int i = 0; i < size; i++) {
+            for (int k = 0; k < size && alive[i]; k++) {
+                if (k != i && alive[k] && dominates(payoffs, k, i, opponentSize, opponentAlive, opponentStride,
+                        stride, sign)) {
+                    alive[i] = false;
+                    eliminated = true;
+                }
+            }
+        }
+        return eliminated;
+    }
+
+    /**
+     * @param payoffs        the payoff matrix of player 1
+     * @param k              the index of the scheme that may dominate
+     * @param i              the index of the scheme that may be dominated
+     * @param opponentSize   the number of schemes of the opponent
+     * @param opponentAlive  whether each scheme of the opponent survives
+     * @param opponentStride the distance in payoffs between consecutive opponent schemes
+     * @param stride         the distance in payoffs between consecutive schemes of this player
+     * @param sign           1 for player 1, -1 for player 2
+     * @return whether scheme k dominates scheme i against every surviving opponent scheme
+     */
+    private boolean dominates(int[] payoffs, int k, int i, int opponentSize, boolean[] opponentAlive,
+                              int opponentStride, int stride, int sign) {
+        boolean better = false;
+        for (int j = 0; j < opponentSize; j++) {
+            if (opponentAlive[j]) {
+                int difference = sign * (payoffs[k * stride + j * opponentStride]
+                        - payoffs[i * stride + j * opponentStride]);
+                if (difference < 0 || difference == 0 && !weak) {
+                    return false;
+                }
+                better |= difference > 0;
+            }
+        }
+        return better;
+    }
+
+    /**
+     * Replace the eliminated schemes of a strategy with distinct offspring of the surviving ones.
+     *
+     * @param strategy the strategy to replace schemes in
+     * @param alive    whether each scheme survives
+     * @return the number of schemes replaced
+     */
+    private int replace(Strategy strategy, boolean[] alive) {
+        int survivors = 0;
+        for (boolean a : alive) {
+            survivors += a ? 1 : 0;
+        }
+        if (survivors == alive.length) {
+            return 0;
+        }
+
+        Scheme[] parents = new Scheme[2];
+        int[] survivorRows = new int[survivors];
+        for (int i = 0, s = 0; i < alive.length; i++) {
+            if (alive[i]) {
+                survivorRows[s++] = i;
+            }
+        }
+        LongSet ids = new LongSet(strategy.size());
+        for (Scheme scheme : strategy) {
+            ids.add(scheme.getId());
+        }
+
+        Scheme child = new Scheme(new int[strategy.get(0).getNumberOfBattlefields()]);
+        int[] troops = new int[child.getNumberOfBattlefields()];
+        for (int i = 0; i < alive.length; i++) {
+            if (alive[i]) {
+                continue;
+            }
+            long id;
+            int attempt = 0;
+            do {
+                if (attempt++ < ATTEMPTS) {
+                    parents[0] = strategy.get(survivorRows[EA.random().nextInt(survivors)]);
+                    parents[1] = strategy.get(survivorRows[EA.random().nextInt(survivors)]);
+                    child.crossover(parents, strategy.getTroopCount());
+                    for (int b = 0; b < troops.length; b++) {
+                        troops[b] = child.getBattlefieldTroops(b);
+                    }
+                    if (EA.random().nextDouble() < mutationRate) {
+                        EA.mutate(troops);
+                    }
+                } else {
+                    Scheme.allocateRandomly(troops, strategy.getTroopCount());
+                }
+                id = SchemeRank.rank(troops);
+            } while (!ids.add(id));
+            strategy.replace(i, troops, id);
+        }
+        return alive.length - survivors;
+    }
+
+    /**
+     * @param size the number of schemes
+     * @return an array marking every scheme as surviving
+     */
+    private static boolean[] alive(int size) {
+        boolean[] alive = new boolean[size];
+        Arrays.fill(alive, true);
+        return alive;
+    }
+}
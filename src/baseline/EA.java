@@ -1,14 +1,27 @@
 package baseline;
 
 import java.util.Random;
-import java.util.Set;
-import java.util.HashSet;
-import java.util.TreeSet;
 
 public class EA {
     public static final double ELITISM_RATE = .2;   // The rate to bring the elite schemes to the next generation
     public static final double MUTATION_RATE = .05; // The rate to mutate an offspring
-    public static final Random RANDOM = new Random();
+
+    /**
+     * @return the random number generator of the current thread, used for generating, selecting and mutating schemes
+     * and for choosing which scheme to play
+     */
+    public static Random random() {
+        return Scratch.get().random;
+    }
+
+    /**
+     * Seed the random number generator of the current thread so that a run on it can be repeated.
+     *
+     * @param seed the seed
+     */
+    public static void seed(long seed) {
+        Scratch.get().random.setSeed(seed);
+    }
 
     /**
      * Evaluate the expected value for each scheme. This is a competitive co-evolution fitness function.
@@ -23,9 +36,24 @@ public class EA {
         validateAvgProbSum(player1);
         validateAvgProbSum(player2);
 
-        for (Scheme scheme1 : player1) {
-            for (Scheme scheme2 : player2) {
-                int p1Utility = BaselineDriver.utility(scheme1, scheme2);
+        // Score all of player 1's schemes against each of player 2's at once, summing in the same order as pairwise
+        int[] theirTroops = new int[player2.get(0).getNumberOfBattlefields()];
+        int[] p1Utilities = new int[player1.size()];
+        for (Scheme scheme2 : player2) {
+            if (PayoffCache.ENABLED) {
+                for (int i = 0; i < p1Utilities.length; i++) {
+                    p1Utilities[i] = BaselineDriver.utility(player1.get(i), scheme2);
+                }
+            } else {
+                for (int b = 0; b < theirTroops.length; b++) {
+                    theirTroops[b] = scheme2.getBattlefieldTroops(b);
+                }
+                player1.utilities(theirTroops, p1Utilities);
+            }
+
+            for (int i = 0; i < p1Utilities.length; i++) {
+                Scheme scheme1 = player1.get(i);
+                int p1Utility = p1Utilities[i];
 
                 double expectedValue = scheme1.getExpectedValue();
                 expectedValue += scheme2.getAverageProb() * p1Utility;
@@ -42,18 +70,64 @@ public class EA {
     }
 
     /**
-     * Validate the sum of the average probabilities in a strategy is 1.
+     * Evaluate the expected value for each scheme of two populations of any backing, such as an OffHeapPopulation
+     * of millions of schemes against a strategy. Sums in the same order as for two strategies.
+     *
+     * @param player1 the population of player 1
+     * @param player2 the population of player 2
+     */
+    public static void evaluateFitness(Population player1, Population player2) throws Exception {
+        validateAvgProbSum(player1);
+        validateAvgProbSum(player2);
+        for (int i = 0; i < player1.size(); i++) {
+            player1.setExpectedValue(i, 0);
+        }
+        for (int j = 0; j < player2.size(); j++) {
+            player2.setExpectedValue(j, 0);
+        }
+
+        int[] theirTroops = new int[player2.getNumberOfBattlefields()];
+        int[] p1Utilities = new int[player1.size()];
+        for (int j = 0; j < player2.size(); j++) {
+            player2.getTroops(j, theirTroops);
+            player1.utilities(theirTroops, p1Utilities);
+
+            double p2Prob = player2.getAverageProb(j), p2ExpectedValue = player2.getExpectedValue(j);
+            for (int i = 0; i < p1Utilities.length; i++) {
+                player1.setExpectedValue(i, player1.getExpectedValue(i) + p2Prob * p1Utilities[i]);
+                p2ExpectedValue += player1.getAverageProb(i) * -p1Utilities[i];
+            }
+            player2.setExpectedValue(j, p2ExpectedValue);
+        }
+
+        player1.sort();
+        player2.sort();
+    }
+
+    /**
+     * Judge a strategy against past opponents as well as its current one, blending the expected value of each scheme
+     * with its expected value against a sample of the archive. Call after evaluateFitness of both players.
      *
-     * @param strategy the strategy to validate
+     * @param strategy  the strategy to judge
+     * @param opponents the player's past opponents
+     */
+    public static void evaluateFitness(Strategy strategy, HallOfFame opponents) {
+        opponents.evaluateFitness(strategy);
+    }
+
+    /**
+     * Validate the sum of the average probabilities in a population is 1.
+     *
+     * @param population the population to validate
      * @throws Exception if the sum of the average probabilities is not 1
      */
-    private static void validateAvgProbSum(Strategy strategy) throws Exception {
+    private static void validateAvgProbSum(Population population) throws Exception {
         double sum = 0;
-        for (Scheme scheme : strategy) {
-            sum += scheme.getAverageProb();
+        for (int i = 0; i < population.size(); i++) {
+            sum += population.getAverageProb(i);
         }
         if ((Math.abs(sum - 1) > .00001)) {
-            throw new Exception("Sum: " + sum + System.lineSeparator() + strategy);
+            throw new Exception("Sum: " + sum + System.lineSeparator() + population);
         }
     }
 
@@ -65,31 +139,72 @@ public class EA {
      * @return the evolved strategy for this player
      */
     public static Strategy evolve(Strategy loser, int strategySize) {
-        // Use a set to prohibit duplicate schemes
-        Set<Scheme> strategySet = new HashSet<>();
+        return evolve(loser, strategySize, ELITISM_RATE, MUTATION_RATE);
+    }
+
+    /**
+     * Evolve the strategy for loser.
+     *
+     * @param loser        the losing player's strategy
+     * @param strategySize the size of the strategy
+     * @param elitismRate  the rate to bring the elite schemes to the next generation
+     * @param mutationRate the rate to mutate an offspring
+     * @return the evolved strategy for this player
+     */
+    public static Strategy evolve(Strategy loser, int strategySize, double elitismRate, double mutationRate) {
+        return evolve(loser, strategySize, elitismRate, mutationRate, null);
+    }
+
+    /**
+     * Evolve the strategy for loser, breeding no scheme the archive remembers losing unless the parents can't breed
+     * anything else.
+     *
+     * @param loser        the losing player's strategy
+     * @param strategySize the size of the strategy
+     * @param elitismRate  the rate to bring the elite schemes to the next generation
+     * @param mutationRate the rate to mutate an offspring
+     * @param archive      records the discarded schemes and rejects children it remembers, or null
+     * @return the evolved strategy for this player
+     */
+    public static Strategy evolve(Strategy loser, int strategySize, double elitismRate, double mutationRate,
+                                  NoveltyArchive archive) {
+        // The builder uses the scheme ids to prohibit duplicate schemes
+        StrategyBuilder builder = new StrategyBuilder(loser.get(0).getNumberOfBattlefields(), strategySize,
+                loser.getTroopCount());
 
         // Copy elites to next generation
-        int eliteCount = (int) Math.ceil(ELITISM_RATE * loser.size());
+        int eliteCount = (int) Math.ceil(elitismRate * loser.size());
         for (int i = 0; i < eliteCount; i++) {
-            strategySet.add(loser.get(i));
+            builder.add(loser.get(i));
+        }
+        if (archive != null) {
+            archive.record(loser, eliteCount);
         }
 
-        // Use reproduction and mutation to fill the rest of the new strategy
-        while (strategySet.size() < strategySize) {
+        // Use reproduction and mutation to fill the rest of the new strategy. One child is refilled each time.
+        Scheme[] parents = new Scheme[2];
+        Scheme child = new Scheme(new int[loser.get(0).getNumberOfBattlefields()]);
+        int rejected = 0;   // Children the archive rejected in a row
+        while (!builder.isFull()) {
             // Select 2 parent schemes for crossover using tournament selection
-            Scheme[] parents = selectParents(loser);
+            selectParents(loser, parents, elitismRate);
 
             // Use crossover to produce child schemes
-            Scheme child = crossover(parents, loser.getTroopCount());
+            child.crossover(parents, loser.getTroopCount());
 
             // Mutate with probability
-            if (RANDOM.nextDouble() < MUTATION_RATE) {
+            if (random().nextDouble() < mutationRate) {
                 mutate(child);
             }
-            strategySet.add(child);
+            if (archive != null && rejected < NoveltyArchive.MAX_REJECTIONS && archive.rejects(child.getId())) {
+                rejected++;
+                continue;
+            }
+            rejected = 0;
+            builder.add(child);
         }
 
-        return new Strategy(loser, strategySet);
+        return builder.build();
     }
 
     /**
@@ -99,19 +214,48 @@ public class EA {
      * @return two schemes from loser
      */
     public static Scheme[] selectParents(Strategy loser) {
-        final int tournamentSize = (int) Math.max(Math.ceil(ELITISM_RATE * loser.size()), 2);
+        Scheme[] parents = new Scheme[2];
+        selectParents(loser, parents, ELITISM_RATE);
+        return parents;
+    }
 
-        TreeSet<Scheme> tournament1 = new TreeSet<>();
-        while (tournament1.size() < tournamentSize) {
-            tournament1.add(loser.get(RANDOM.nextInt(loser.size())));
-        }
+    /**
+     * Select two parent schemes to produce a child scheme using tournament selection. First part of reproduction.
+     *
+     * @param loser       the losing player's strategy
+     * @param parents     receives two schemes from loser
+     * @param elitismRate the rate to bring the elite schemes to the next generation, which sizes the tournaments
+     */
+    public static void selectParents(Strategy loser, Scheme[] parents, double elitismRate) {
+        parents[0] = tournament(loser, elitismRate);
+        parents[1] = tournament(loser, elitismRate);
+    }
 
-        TreeSet<Scheme> tournament2 = new TreeSet<>();
-        while (tournament2.size() < tournamentSize) {
-            tournament2.add(loser.get(RANDOM.nextInt(loser.size())));
-        }
+    /**
+     * Hold a tournament among distinct schemes drawn at random from loser.
+     *
+     * @param loser       the losing player's strategy
+     * @param elitismRate the rate to bring the elite schemes to the next generation, which sizes the tournament
+     * @return the scheme with the greatest expected value in the tournament
+     */
+    private static Scheme tournament(Strategy loser, double elitismRate) {
+        final int tournamentSize = (int) Math.min(Math.max(Math.ceil(elitismRate * loser.size()), 2), loser.size());
+
+        // Draw distinct schemes with a partial shuffle of the reusable permutation
+        int[] indices = Scratch.get().permutation(loser.size());
+        Scheme best = null;
+        for (int i = 0; i < tournamentSize; i++) {
+            int j = i + random().nextInt(loser.size() - i);
+            int temp = indices[i];
+            indices[i] = indices[j];
+            indices[j] = temp;
 
-        return new Scheme[]{tournament1.last(), tournament2.last()};
+            Scheme entrant = loser.get(indices[i]);
+            if (best == null || entrant.compareTo(best) > 0) {
+                best = entrant;
+            }
+        }
+        return best;
     }
 
     /**
@@ -131,10 +275,25 @@ public class EA {
      * @param scheme the scheme to mutate
      */
     private static void mutate(Scheme scheme) {
-        int battlefield1 = RANDOM.nextInt(scheme.getNumberOfBattlefields()), battlefield2;
+        int battlefield1 = random().nextInt(scheme.getNumberOfBattlefields()), battlefield2;
         do {
-            battlefield2 = RANDOM.nextInt(scheme.getNumberOfBattlefields());
+            battlefield2 = random().nextInt(scheme.getNumberOfBattlefields());
         } while (battlefield2 == battlefield1);
         scheme.swapTroops(battlefield1, battlefield2);
     }
+
+    /**
+     * Mutate a troop allocation by swapping troops between two battlefields.
+     *
+     * @param troops the number of troops on each battlefield
+     */
+    static void mutate(int[] troops) {
+        int battlefield1 = random().nextInt(troops.length), battlefield2;
+        do {
+            battlefield2 = random().nextInt(troops.length);
+        } while (battlefield2 == battlefield1);
+        int temp = troops[battlefield1];
+        troops[battlefield1] = troops[battlefield2];
+        troops[battlefield2] = temp;
+    }
 }
@@ -0,0 +1,42 @@
+package baseline;
+
+/**
+ * Fictitious play. Each round the strategy plays a best response to the opponent's schemes so far, the schemes with
+ * the highest utility sum, splitting the probability evenly between ties.
+ */
+class FictitiousPlay implements Solver {
+    @Override
+    public void update(Strategy strategy, int my, int[] utilities, int utility, int timestep) {
+        SchemeStore store = strategy.getStore();
+        for (int i = 0; i < store.size; i++) {
+            store.utilitySums[i] += utilities[i];
+        }
+        resolve(strategy, my, timestep);
+    }
+
+    @Override
+    public void resolve(Strategy strategy, int my, int timestep) {
+        SchemeStore store = strategy.getStore();
+        int[] utilitySums = store.utilitySums;
+        double[] probability = store.probability;
+
+        int best = Integer.MIN_VALUE, ties = 0;
+        for (int i = 0; i < store.size; i++) {
+            if (utilitySums[i] > best) {
+                best = utilitySums[i];
+                ties = 1;
+            } else if (utilitySums[i] == best) {
+                ties++;
+            }
+        }
+
+        for (int i = 0; i < store.size; i++) {
+            probability[i] = utilitySums[i] == best ? 1.0 / ties : 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "fictitious";
+    }
+}
@@ -0,0 +1,174 @@
+package baseline;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * An archive of a player's past opponents. Judging a strategy only against the opponent's current strategy lets
+ * co-evolution cycle, so a strategy's fitness can be blended with its fitness against a sample of the archive. Newer
+ * members are sampled more often. Members are immutable snapshots, so each remembers the expected value of every
+ * scheme it has been played against, by scheme id, and elites carried from game to game aren't played again.
+ */
+public class HallOfFame {
+    private static final double DECAY = .9;                 // The weight of a member relative to the next newer one
+    private static final int PARALLEL_THRESHOLD = 50_000;   // The battlefield comparisons worth evaluating in parallel
+    private static final int MAX_CACHED = 1 << 12;          // The expected values a member remembers
+
+    private final int capacity;
+    private final int sampleSize;
+    private final double archiveWeight;     // The share of a scheme's fitness from the archive
+    private final List<Member> members = new ArrayList<>();   // Oldest first
+    private long additions;
+
+    /**
+     * Construct an empty archive.
+     *
+     * @param capacity      the most past opponents to keep, dropping the oldest
+     * @param sampleSize    the number of past opponents to judge a strategy against
+     * @param archiveWeight the share of a scheme's fitness from the archive, the rest from the current opponent
+     */
+    public HallOfFame(int capacity, int sampleSize, double archiveWeight) {
+        this.capacity = capacity;
+        this.sampleSize = sampleSize;
+        this.archiveWeight = archiveWeight;
+    }
+
+    /**
+     * Add a copy of an opponent's strategy.
+     *
+     * @param opponent the opponent's strategy
+     */
+    public void add(Strategy opponent) {
+        if (members.size() == capacity) {
+            members.remove(0);
+        }
+        members.add(new Member(new StrategySnapshot(++additions, 0, 0, opponent)));
+    }
+
+    /**
+     * @return the number of past opponents kept
+     */
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * Blend each scheme's expected value against the current opponent with its average expected value against a
+     * sample of past opponents, then sort the strategy.
+     *
+     * @param strategy a strategy whose expected values were just evaluated against the current opponent
+     */
+    void evaluateFitness(final Strategy strategy) {
+        if (members.isEmpty()) {
+            return;
+        }
+        final Member[] sample = sample();
+
+        // Evaluate the sampled members in parallel if there is enough work to share
+        final double[][] expectedValues = new double[sample.length][];
+        long work = (long) sample.length * strategy.size() * strategy.get(0).getNumberOfBattlefields()
+                * sample[0].opponent.size();
+        IntStream indices = IntStream.range(0, sample.length);
+        (work >= PARALLEL_THRESHOLD ? indices.parallel() : indices)
+                .forEach(m -> expectedValues[m] = sample[m].expectedValues(strategy));
+
+        for (int i = 0; i < strategy.size(); i++) {
+            double archived = 0;
+            for (double[] memberExpectedValues : expectedValues) {
+                archived += memberExpectedValues[i];
+            }
+            Scheme scheme = strategy.get(i);
+            scheme.setExpectedValue((1 - archiveWeight) * scheme.getExpectedValue()
+                    + archiveWeight * archived / sample.length);
+        }
+        strategy.sort();
+    }
+
+    /**
+     * Draw distinct members, each newer one DECAY^-1 times as likely as the one before it, by giving each member the
+     * key u^(1 / weight) and keeping the largest keys.
+     *
+     * @return the sampled members
+     */
+    private Member[] sample() {
+        int count = Math.min(sampleSize, members.size());
+        Member[] sample = new Member[count];
+        double[] keys = new double[count];
+        double weight = 1;
+        for (int m = members.size() - 1; m >= 0; m--, weight *= DECAY) {
+            double key = Math.pow(EA.random().nextDouble(), 1 / weight);
+            int slot = -1;
+            for (int s = 0; s < count; s++) {
+                if (sample[s] == null) {
+                    slot = s;
+                    break;
+                }
+                if (slot < 0 || keys[s] < keys[slot]) {
+                    slot = s;
+                }
+            }
+            if (sample[slot] == null || key > keys[slot]) {
+                sample[slot] = members.get(m);
+                keys[slot] = key;
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * A past opponent and the expected values of the schemes played against it.
+     */
+    private static class Member {
+        private final StrategySnapshot opponent;
+        private final Map<Long, Double> cache = new HashMap<>();
+
+        Member(StrategySnapshot opponent) {
+            this.opponent = opponent;
+        }
+
+        /**
+         * @param strategy the strategy to judge
+         * @return the expected value of each of its schemes against this opponent's average strategy
+         */
+        double[] expectedValues(Strategy strategy) {
+            if (cache.size() > MAX_CACHED) {
+                cache.clear();
+            }
+            double[] expectedValues = new double[strategy.size()];
+            for (int i = 0; i < strategy.size(); i++) {
+                Scheme scheme = strategy.get(i);
+                Double cached = cache.get(scheme.getId());
+                if (cached == null) {
+                    cached = expectedValue(scheme);
+                    cache.put(scheme.getId(), cached);
+                }
+                expectedValues[i] = cached;
+            }
+            return expectedValues;
+        }
+
+        /**
+         * @param scheme a scheme
+         * @return its expected value against this opponent's average strategy
+         */
+        private double expectedValue(Scheme scheme) {
+            double expectedValue = 0;
+            for (int j = 0; j < opponent.size(); j++) {
+                int myScore = 0, theirScore = 0;
+                for (int b = 0; b < opponent.getNumberOfBattlefields(); b++) {
+                    int theirTroops = opponent.getTroops(j, b);
+                    if (scheme.getBattlefieldTroops(b) > theirTroops) {
+                        myScore += b + 1;
+                    } else if (scheme.getBattlefieldTroops(b) < theirTroops) {
+                        theirScore += b + 1;
+                    }
+                }
+                expectedValue += opponent.getAverageProb(j) * Integer.compare(myScore, theirScore);
+            }
+            return expectedValue;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package baseline;
+
+/**
+ * Hedge, or multiplicative weights, over the utility sums of the schemes. The probability of a scheme is proportional
+ * to e^(eta * utility sum) with the anytime learning rate eta = sqrt(8 ln n / t) / 2, utilities spanning 2. The
+ * optimistic variant adds the latest round's utilities once more, predicting the next round repeats them.
+ */
+class Hedge implements Solver {
+    private final boolean optimistic;   // Whether to count the latest round's utilities twice
+
+    /**
+     * @param optimistic whether to count the latest round's utilities twice
+     */
+    Hedge(boolean optimistic) {
+        this.optimistic = optimistic;
+    }
+
+    @Override
+    public void update(Strategy strategy, int my, int[] utilities, int utility, int timestep) {
+        SchemeStore store = strategy.getStore();
+        for (int i = 0; i < store.size; i++) {
+            store.utilitySums[i] += utilities[i];
+        }
+        setProbabilities(store, optimistic ? utilities : null, timestep);
+    }
+
+    @Override
+    public void resolve(Strategy strategy, int my, int timestep) {
+        setProbabilities(strategy.getStore(), null, timestep);
+    }
+
+    /**
+     * Weigh each scheme exponentially in its utility sum.
+     *
+     * @param store     the storage of the strategy
+     * @param utilities the latest utilities to count twice, or null
+     * @param timestep  the number of rounds played in the game
+     */
+    private static void setProbabilities(SchemeStore store, int[] utilities, int timestep) {
+        int[] utilitySums = store.utilitySums;
+        double[] probability = store.probability;
+        double eta = Math.sqrt(2 * Math.log(store.size) / timestep);
+
+        int best = Integer.MIN_VALUE;
+        for (int i = 0; i < store.size; i++) {
+            best = Math.max(best, utilitySums[i] + (utilities != null ? utilities[i] : 0));
+        }
+
+        // Weigh relative to the best scheme so the exponentials can't overflow
+        double sum = 0;
+        for (int i = 0; i < store.size; i++) {
+            probability[i] = Math.exp(eta * (utilitySums[i] + (utilities != null ? utilities[i] : 0) - best));
+            sum += probability[i];
+        }
+        for (int i = 0; i < store.size; i++) {
+            probability[i] /= sum;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return optimistic ? "optimistic-hedge" : "hedge";
+    }
+}
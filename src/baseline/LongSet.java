@@ -0,0 +1,110 @@
+package baseline;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash set of longs, such as scheme ids, that stores its keys in a primitive array.
+ */
+public class LongSet {
+    private static final long EMPTY = Long.MIN_VALUE;   // Marks an unused slot. The key itself is tracked by hasEmptyKey.
+
+    private long[] keys;
+    private boolean hasEmptyKey;   // Whether EMPTY itself is in the set
+    private int size;
+
+    /**
+     * Construct an empty set.
+     *
+     * @param expectedSize the number of keys the set should hold without growing
+     */
+    public LongSet(int expectedSize) {
+        keys = new long[tableSize(expectedSize)];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Add a key to the set.
+     *
+     * @param key the key to add
+     * @return true if the key was not already in the set
+     */
+    public boolean add(long key) {
+        if (key == EMPTY) {
+            if (hasEmptyKey) {
+                return false;
+            }
+            hasEmptyKey = true;
+            size++;
+            return true;
+        }
+        int slot = slot(key, keys);
+        if (keys[slot] == key) {
+            return false;
+        }
+        keys[slot] = key;
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+        return true;
+    }
+
+    /**
+     * @param key the key to look for
+     * @return true if the key is in the set
+     */
+    public boolean contains(long key) {
+        return key == EMPTY ? hasEmptyKey : keys[slot(key, keys)] == key;
+    }
+
+    /**
+     * @return the number of keys in the set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Remove every key from the set.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        hasEmptyKey = false;
+        size = 0;
+    }
+
+    /**
+     * Double the table and reinsert every key.
+     */
+    private void rehash() {
+        long[] grown = new long[keys.length * 2];
+        Arrays.fill(grown, EMPTY);
+        for (long key : keys) {
+            if (key != EMPTY) {
+                grown[slot(key, grown)] = key;
+            }
+        }
+        keys = grown;
+    }
+
+    /**
+     * @param key   the key to look for
+     * @param table the table to probe
+     * @return the slot holding key, or the empty slot where it belongs
+     */
+    private static int slot(long key, long[] table) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ hash >>> 32) & (table.length - 1);
+        while (table[slot] != EMPTY && table[slot] != key) {
+            slot = (slot + 1) & (table.length - 1);
+        }
+        return slot;
+    }
+
+    /**
+     * @param expectedSize the number of keys the set should hold without growing
+     * @return a power of two at least twice expectedSize
+     */
+    private static int tableSize(int expectedSize) {
+        return Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1) << 1;
+    }
+}
@@ -0,0 +1,200 @@
+package baseline;
+
+import java.util.Arrays;
+
+/**
+ * A memory across generations of the schemes that lost, so evolve can stop breeding them again. The archive is a pair
+ * of Bloom filters over scheme ids. Ids are recorded in the current filter until it holds capacity ids, then the
+ * older filter is cleared and the two swap places, so the false-positive rate stays near its target and a verdict
+ * expires after between one and two capacities of newer ones. A false positive only costs evolve one child it would
+ * have kept. An archive belongs to one run and isn't thread-safe. It isn't checkpointed, so a resumed run starts with
+ * an empty one.
+ */
+public class NoveltyArchive {
+    public static final int MAX_REJECTIONS = 100;   // Rejected children in a row before evolve accepts one anyway
+
+    private final int capacity;
+    private final double falsePositiveRate;         // The target false-positive rate of each full filter
+    private final int hashes;                       // The number of bits set per id
+    private final int bits;                         // The number of bits in each filter
+    private long[] current;
+    private long[] older;
+    private int currentCount;                       // The number of ids recorded in current
+    private int olderCount;                         // The number of ids recorded in older
+    private long recorded;
+    private long queries;
+    private long rejections;
+
+    /**
+     * Construct an empty archive.
+     *
+     * @param capacity          the number of ids to record before the older half of the archive is forgotten
+     * @param falsePositiveRate the target rate that an unrecorded id is reported as recorded
+     */
+    public NoveltyArchive(int capacity, double falsePositiveRate) {
+        if (capacity < 1 || !(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("capacity " + capacity + ", false-positive rate " + falsePositiveRate);
+        }
+        this.capacity = capacity;
+        this.falsePositiveRate = falsePositiveRate;
+
+        // The optimal filter for n ids at rate p has -n ln p / (ln 2)^2 bits and (bits / n) ln 2 hashes
+        double optimalBits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        bits = (int) Math.min(Math.max(Math.ceil(optimalBits / 64) * 64, 64), Integer.MAX_VALUE - 63);
+        hashes = (int) Math.max(Math.round(bits / (double) capacity * Math.log(2)), 1);
+        current = new long[bits / 64];
+        older = new long[bits / 64];
+    }
+
+    /**
+     * Record the losing schemes of a strategy that evolve is about to discard: those past the elites that have a
+     * negative expected value against the winner.
+     *
+     * @param loser      the losing player's strategy, sorted by evaluateFitness
+     * @param eliteCount the number of schemes evolve keeps
+     */
+    public void record(Strategy loser, int eliteCount) {
+        for (int i = eliteCount; i < loser.size(); i++) {
+            if (loser.get(i).getExpectedValue() < 0) {
+                record(loser.get(i).getId());
+            }
+        }
+    }
+
+    /**
+     * Record a scheme id as a loser.
+     *
+     * @param id the scheme id
+     */
+    public void record(long id) {
+        if (currentCount == capacity) {
+            long[] cleared = older;
+            Arrays.fill(cleared, 0);
+            older = current;
+            olderCount = currentCount;
+            current = cleared;
+            currentCount = 0;
+        }
+        long h1 = mix(id), h2 = mix(h1) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, bits);
+            current[bit >>> 6] |= 1L << bit;
+        }
+        currentCount++;
+        recorded++;
+    }
+
+    /**
+     * Check whether evolve should reject a child, counting the check in the metrics.
+     *
+     * @param id the child's scheme id
+     * @return true if the id was probably recorded, false if it definitely wasn't or has expired
+     */
+    public boolean rejects(long id) {
+        queries++;
+        if (contains(id)) {
+            rejections++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param id the scheme id
+     * @return true if the id was probably recorded, false if it definitely wasn't or has expired
+     */
+    public boolean contains(long id) {
+        long h1 = mix(id), h2 = mix(h1) | 1;
+        return contains(current, h1, h2) || contains(older, h1, h2);
+    }
+
+    /**
+     * @param filter the filter to probe
+     * @param h1     the first hash of the id
+     * @param h2     the odd second hash of the id, the stride between its bits
+     * @return true if every bit of the id is set in filter
+     */
+    private boolean contains(long[] filter, long h1, long h2) {
+        for (int i = 0; i < hashes; i++) {
+            int bit = (int) Long.remainderUnsigned(h1 + i * h2, bits);
+            if ((filter[bit >>> 6] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param x the value to hash
+     * @return the SplitMix64 finalizer of x
+     */
+    private static long mix(long x) {
+        x = (x ^ x >>> 30) * 0xBF58476D1CE4E5B9L;
+        x = (x ^ x >>> 27) * 0x94D049BB133111EBL;
+        return x ^ x >>> 31;
+    }
+
+    /**
+     * @return the number of ids recorded before the older half of the archive is forgotten
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the target rate that an unrecorded id is reported as recorded
+     */
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * @return the rate that an unrecorded id is reported as recorded by the archive as it is now
+     */
+    public double getEstimatedFalsePositiveRate() {
+        return 1 - (1 - fillRate(currentCount)) * (1 - fillRate(olderCount));
+    }
+
+    /**
+     * @param count the number of ids in a filter
+     * @return the false-positive rate of a filter holding count ids
+     */
+    private double fillRate(int count) {
+        return Math.pow(1 - Math.exp(-hashes * (double) count / bits), hashes);
+    }
+
+    /**
+     * @return the number of bits in the archive
+     */
+    public long getBits() {
+        return 2L * bits;
+    }
+
+    /**
+     * @return the number of ids recorded since construction
+     */
+    public long getRecorded() {
+        return recorded;
+    }
+
+    /**
+     * @return the number of children checked
+     */
+    public long getQueries() {
+        return queries;
+    }
+
+    /**
+     * @return the number of children rejected
+     */
+    public long getRejections() {
+        return rejections;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("recorded: %d, queries: %d, rejections: %d, capacity: %d, false-positive rate: %.4f%% "
+                        + "(target %.4f%%), bits: %d", getRecorded(), getQueries(), getRejections(), getCapacity(),
+                getEstimatedFalsePositiveRate() * 100, getFalsePositiveRate() * 100, getBits());
+    }
+}
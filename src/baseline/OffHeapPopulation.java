@@ -0,0 +1,332 @@
+package baseline;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * A population of up to hundreds of millions of schemes kept outside the heap, for evaluating enumeration-scale or
+ * archive-scale populations with a flat heap and short GC pauses. The columns of a SchemeStore that evaluation needs,
+ * troops in the narrowest type that holds the budget, ids, average probabilities and expected values, live in direct
+ * buffers, and there are no Scheme objects. There is no learning state, since regret over a million schemes would be
+ * a trillion sums. Scoring runs over blocks of rows in parallel. The first sort allocates 24 more bytes a row. Direct
+ * memory is capped by -XX:MaxDirectMemorySize, which defaults to the heap's maximum. The buffers are freed when the
+ * population is collected.
+ */
+public class OffHeapPopulation implements Population {
+    private static final int BLOCK_ROWS = 1 << 14;  // Rows scored per parallel task
+
+    private final int capacity;
+    private final int numberOfBattlefields;
+    private final int troopBytes;                   // 1, 2 or 4, the bytes per battlefield of troops
+    private final ByteBuffer troops;                // Row r's troops on battlefield b at r * numberOfBattlefields + b
+    private final LongBuffer ids;
+    private final DoubleBuffer averageProb;
+    private final DoubleBuffer expectedValue;
+    private IntBuffer order, orderScratch;          // The rows being sorted, allocated by the first sort
+    private LongBuffer keys, keysScratch;           // The sort keys of the rows being sorted
+    private DoubleBuffer cumulativeProb;            // Sums of averageProb up to each row, allocated by the first sample
+    private boolean cumulativeStale = true;         // Whether cumulativeProb needs summing again
+    private int size;
+
+    /**
+     * Construct an empty population.
+     *
+     * @param capacity             the most schemes the population can hold
+     * @param numberOfBattlefields the number of battlefields in this instance of Colonel Blotto
+     * @param troopCount           the most troops any scheme allocates
+     * @throws IllegalArgumentException if a column of capacity rows wouldn't fit in a buffer
+     */
+    public OffHeapPopulation(int capacity, int numberOfBattlefields, int troopCount) {
+        troopBytes = troopCount <= Byte.MAX_VALUE ? 1 : troopCount <= Short.MAX_VALUE ? 2 : 4;
+        if ((long) capacity * Math.max(numberOfBattlefields * troopBytes, Long.BYTES) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(capacity + " schemes of " + numberOfBattlefields
+                    + " battlefields don't fit in a buffer");
+        }
+        this.capacity = capacity;
+        this.numberOfBattlefields = numberOfBattlefields;
+        troops = allocate(capacity * numberOfBattlefields * troopBytes);
+        ids = allocate(capacity * Long.BYTES).asLongBuffer();
+        averageProb = allocate(capacity * Double.BYTES).asDoubleBuffer();
+        expectedValue = allocate(capacity * Double.BYTES).asDoubleBuffer();
+    }
+
+    /**
+     * @param bytes the size of the buffer
+     * @return a direct buffer in the platform's byte order
+     */
+    private static ByteBuffer allocate(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Add a scheme.
+     *
+     * @param schemeTroops the number of troops on each battlefield
+     * @param prob         the average probability of the scheme
+     * @return the row of the scheme
+     * @throws IllegalStateException if the population is full
+     */
+    public int add(int[] schemeTroops, double prob) {
+        return add(schemeTroops, SchemeRank.rank(schemeTroops), prob);
+    }
+
+    /**
+     * Add a scheme whose rank is already known, as when adding allocations in order, which saves ranking it.
+     *
+     * @param schemeTroops the number of troops on each battlefield
+     * @param id           the rank of the allocation from SchemeRank
+     * @param prob         the average probability of the scheme
+     * @return the row of the scheme
+     * @throws IllegalStateException if the population is full
+     */
+    public int add(int[] schemeTroops, long id, double prob) {
+        if (size == capacity) {
+            throw new IllegalStateException("Population is full at " + capacity + " schemes");
+        }
+        int row = size++;
+        setTroops(row, schemeTroops);
+        ids.put(row, id);
+        averageProb.put(row, prob);
+        expectedValue.put(row, 0);
+        cumulativeStale = true;
+        return row;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the most schemes the population can hold
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public int getNumberOfBattlefields() {
+        return numberOfBattlefields;
+    }
+
+    /**
+     * @param row         the index of the scheme
+     * @param battlefield the index of the battlefield
+     * @return the number of troops scheme row places on battlefield
+     */
+    public int getTroops(int row, int battlefield) {
+        int i = (row * numberOfBattlefields + battlefield) * troopBytes;
+        return troopBytes == 1 ? troops.get(i) : troopBytes == 2 ? troops.getShort(i) : troops.getInt(i);
+    }
+
+    @Override
+    public void getTroops(int row, int[] schemeTroops) {
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            schemeTroops[b] = getTroops(row, b);
+        }
+    }
+
+    /**
+     * @param row the index of the scheme
+     * @return the rank of the scheme's allocation from SchemeRank
+     */
+    public long getId(int row) {
+        return ids.get(row);
+    }
+
+    @Override
+    public double getAverageProb(int row) {
+        return averageProb.get(row);
+    }
+
+    /**
+     * @param row  the index of the scheme
+     * @param prob the average probability of the scheme
+     */
+    public void setAverageProb(int row, double prob) {
+        averageProb.put(row, prob);
+        cumulativeStale = true;
+    }
+
+    @Override
+    public double getExpectedValue(int row) {
+        return expectedValue.get(row);
+    }
+
+    @Override
+    public void setExpectedValue(int row, double value) {
+        expectedValue.put(row, value);
+    }
+
+    @Override
+    public void utilities(int[] theirTroops, int[] utilities) {
+        int blocks = (size + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        IntStream stream = IntStream.range(0, blocks);
+        (blocks > 1 ? stream.parallel() : stream).forEach(block -> {
+            int end = Math.min((block + 1) * BLOCK_ROWS, size);
+            for (int row = block * BLOCK_ROWS; row < end; row++) {
+                int myScore = 0, theirScore = 0;
+                for (int b = 0; b < numberOfBattlefields; b++) {
+                    int myTroops = getTroops(row, b);
+                    if (myTroops > theirTroops[b]) {
+                        myScore += b + 1;
+                    } else if (myTroops < theirTroops[b]) {
+                        theirScore += b + 1;
+                    }
+                }
+                utilities[row] = Integer.compare(myScore, theirScore);
+            }
+        });
+    }
+
+    /**
+     * Sort the schemes in descending order by their expected value, keeping tied schemes in their order. The order is
+     * found by a bottom-up merge sort of keys that compare as the expected values do, read in sequence outside the
+     * heap, then the rows are moved into it a cycle at a time.
+     */
+    @Override
+    public void sort() {
+        if (order == null) {
+            order = allocate(capacity * Integer.BYTES).asIntBuffer();
+            orderScratch = allocate(capacity * Integer.BYTES).asIntBuffer();
+            keys = allocate(capacity * Long.BYTES).asLongBuffer();
+            keysScratch = allocate(capacity * Long.BYTES).asLongBuffer();
+        }
+        for (int i = 0; i < size; i++) {
+            // Flip the bits of negative values so keys order as the values do, then invert for descending order
+            long bits = Double.doubleToLongBits(expectedValue.get(i));
+            keys.put(i, ~(bits ^ (bits >> 63 & Long.MAX_VALUE)));
+            order.put(i, i);
+        }
+
+        LongBuffer fromKeys = keys, toKeys = keysScratch;
+        IntBuffer fromOrder = order, toOrder = orderScratch;
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += 2 * width) {
+                int middle = Math.min(low + width, size), high = Math.min(low + 2 * width, size);
+                int i = low, j = middle;
+                for (int k = low; k < high; k++) {
+                    boolean left = j >= high || i < middle && fromKeys.get(i) <= fromKeys.get(j);
+                    int from = left ? i++ : j++;
+                    toKeys.put(k, fromKeys.get(from));
+                    toOrder.put(k, fromOrder.get(from));
+                }
+            }
+            LongBuffer tempKeys = fromKeys;
+            fromKeys = toKeys;
+            toKeys = tempKeys;
+            IntBuffer tempOrder = fromOrder;
+            fromOrder = toOrder;
+            toOrder = tempOrder;
+        }
+
+        // Row i takes the row at sorted[i]. Following each cycle moves every row once through one spare row.
+        IntBuffer sorted = fromOrder;
+        int[] spareTroops = new int[numberOfBattlefields];
+        for (int start = 0; start < size; start++) {
+            if (sorted.get(start) == start) {
+                continue;
+            }
+            getTroops(start, spareTroops);
+            long spareId = ids.get(start);
+            double spareProb = averageProb.get(start), spareValue = expectedValue.get(start);
+            int row = start;
+            while (sorted.get(row) != start) {
+                int from = sorted.get(row);
+                copyRow(from, row);
+                sorted.put(row, row);
+                row = from;
+            }
+            setTroops(row, spareTroops);
+            ids.put(row, spareId);
+            averageProb.put(row, spareProb);
+            expectedValue.put(row, spareValue);
+            sorted.put(row, row);
+        }
+        cumulativeStale = true;
+    }
+
+    /**
+     * @param from the row to copy
+     * @param to   the row to overwrite
+     */
+    private void copyRow(int from, int to) {
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            int i = (from * numberOfBattlefields + b) * troopBytes, j = (to * numberOfBattlefields + b) * troopBytes;
+            if (troopBytes == 1) {
+                troops.put(j, troops.get(i));
+            } else if (troopBytes == 2) {
+                troops.putShort(j, troops.getShort(i));
+            } else {
+                troops.putInt(j, troops.getInt(i));
+            }
+        }
+        ids.put(to, ids.get(from));
+        averageProb.put(to, averageProb.get(from));
+        expectedValue.put(to, expectedValue.get(from));
+    }
+
+    /**
+     * @param row          the index of the scheme
+     * @param schemeTroops the number of troops on each battlefield
+     */
+    private void setTroops(int row, int[] schemeTroops) {
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            int i = (row * numberOfBattlefields + b) * troopBytes;
+            if (troopBytes == 1) {
+                troops.put(i, (byte) schemeTroops[b]);
+            } else if (troopBytes == 2) {
+                troops.putShort(i, (short) schemeTroops[b]);
+            } else {
+                troops.putInt(i, schemeTroops[b]);
+            }
+        }
+    }
+
+    /**
+     * Draw a scheme in proportion to its average probability, by binary search over cumulative probabilities kept
+     * outside the heap and rebuilt after the probabilities change.
+     *
+     * @param random the random number generator to draw with
+     * @return the row of the scheme
+     * @throws IllegalStateException if the population is empty
+     */
+    public int sample(Random random) {
+        if (size == 0) {
+            throw new IllegalStateException("Can't sample an empty population");
+        }
+        if (cumulativeProb == null) {
+            cumulativeProb = allocate(Math.max(capacity, 1) * Double.BYTES).asDoubleBuffer();
+        }
+        if (cumulativeStale) {
+            double sum = 0;
+            for (int row = 0; row < size; row++) {
+                sum += averageProb.get(row);
+                cumulativeProb.put(row, sum);
+            }
+            cumulativeStale = false;
+        }
+        double selector = random.nextDouble() * cumulativeProb.get(size - 1);
+        int low = 0, high = size - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulativeProb.get(middle) <= selector) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public String toString() {
+        return "OffHeapPopulation{size=" + size + ", capacity=" + capacity + ", numberOfBattlefields="
+                + numberOfBattlefields + ", troopBytes=" + troopBytes + '}';
+    }
+}
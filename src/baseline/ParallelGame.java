@@ -0,0 +1,303 @@
+package baseline;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Plays the rounds of a game in parallel chunks, as in asynchronous regret matching. The rounds are played in epochs
+ * of syncInterval rounds, each split between the chunks. Every chunk learns on its own copy of both players' learning
+ * state, taken at the start of the epoch, with its own random number generator, and plays its rounds one by one
+ * against that copy. At the end of each epoch the chunks' gains are reduced in order into the strategies and the
+ * solver sets the probabilities of the next epoch. The chunk generators are seeded from the run's generator, so a
+ * game depends on its seed and the number of chunks, but not on the number of cores.
+ * <p>
+ * Rounds aren't traced or published one by one.
+ */
+public class ParallelGame {
+    private final int chunks;               // The number of chunks each epoch is split into
+    private final int syncInterval;         // The number of rounds in an epoch, shared between the chunks
+    private int player1Wins;                // The rounds player 1 won in the last game
+    private int player2Wins;                // The rounds player 2 won in the last game
+    private double player1Utility;          // The total utility of player 1 in the last game
+
+    /**
+     * Construct a parallel game.
+     *
+     * @param chunks       the number of chunks each epoch is split into
+     * @param syncInterval the number of rounds between merges of the chunks
+     */
+    public ParallelGame(int chunks, int syncInterval) {
+        this.chunks = chunks;
+        this.syncInterval = syncInterval;
+    }
+
+    /**
+     * Play a game of Colonel Blotto, updating both strategies.
+     *
+     * @param player1 the strategy of player 1
+     * @param player2 the strategy of player 2
+     * @param rounds  the number of rounds in the game
+     * @param solver  sets both players' probabilities each round of a chunk and at every sync point
+     */
+    public void play(Strategy player1, Strategy player2, int rounds, Solver solver) {
+        int size1 = player1.size(), size2 = player2.size();
+
+        // The schemes can't change during a game, so score every pair once
+        int[] payoffs = new int[size1 * size2];
+        int[] theirTroops = new int[player2.get(0).getNumberOfBattlefields()];
+        int[] utilities = new int[size1];
+        for (int j = 0; j < size2; j++) {
+            for (int b = 0; b < theirTroops.length; b++) {
+                theirTroops[b] = player2.get(j).getBattlefieldTroops(b);
+            }
+            player1.utilities(theirTroops, utilities);
+            for (int i = 0; i < size1; i++) {
+                payoffs[i * size2 + j] = utilities[i];
+            }
+        }
+
+        Chunk[] chunk = new Chunk[chunks];
+        for (int c = 0; c < chunks; c++) {
+            chunk[c] = new Chunk(player1, player2, payoffs, solver);
+        }
+        Learner total1 = new Learner(player1), total2 = new Learner(player2);
+        player1Wins = 0;
+        player2Wins = 0;
+        player1Utility = 0;
+
+        for (int played = 0; played < rounds; ) {
+            int epoch = Math.min(syncInterval, rounds - played);
+            for (int c = 0; c < chunks; c++) {
+                chunk[c].reset(EA.random().nextLong(), epoch / chunks + (c < epoch % chunks ? 1 : 0));
+            }
+
+            if (chunks > 1) {
+                IntStream.range(0, chunks).parallel().forEach(c -> chunk[c].play());
+            } else {
+                chunk[0].play();
+            }
+
+            // Reduce the chunks in order at the sync point
+            total1.clear();
+            total2.clear();
+            int last1 = 0, last2 = 0;
+            for (Chunk c : chunk) {
+                c.player1.addGains(total1);
+                c.player2.addGains(total2);
+                player1Wins += c.player1Wins;
+                player2Wins += c.player2Wins;
+                player1Utility += c.player1Utility;
+                if (c.rounds > 0) {
+                    last1 = c.last1;
+                    last2 = c.last2;
+                }
+            }
+            player1.merge(total1.payoffDifferenceSums, total1.utilitySums, total1.probabilitySums, epoch, last1,
+                    solver);
+            player2.merge(total2.payoffDifferenceSums, total2.utilitySums, total2.probabilitySums, epoch, last2,
+                    solver);
+            played += epoch;
+        }
+    }
+
+    /**
+     * @return the number of rounds player 1 won in the last game
+     */
+    public int getPlayer1Wins() {
+        return player1Wins;
+    }
+
+    /**
+     * @return the number of rounds player 2 won in the last game
+     */
+    public int getPlayer2Wins() {
+        return player2Wins;
+    }
+
+    /**
+     * @return the total utility of player 1 in the last game, the negation of player 2's
+     */
+    public double getPlayer1Utility() {
+        return player1Utility;
+    }
+
+    /**
+     * One player's learning state in a chunk: a strategy over its own storage that a solver updates, and the
+     * snapshot it started the epoch from. Also used to sum the chunks' gains.
+     */
+    private static class Learner {
+        private final Strategy player;          // The strategy the snapshot is taken from
+        private final Strategy copy;            // Learns on its own storage during an epoch
+        private final int size;
+        private final int[] payoffDifferenceSums;   // [i * size + j] as in SchemeStore, at the start of the epoch
+        private final int[] utilitySums;            // As in SchemeStore, at the start of the epoch
+        private final double[] probabilitySums;     // The sum of the probability of each scheme over the epoch
+        private int timestep;                       // The number of rounds the copy has played in the game
+
+        /**
+         * @param player the strategy to learn for
+         */
+        Learner(Strategy player) {
+            this.player = player;
+            size = player.size();
+            copy = new Strategy(new SchemeStore(size, 0, 0), player.getTroopCount());
+            payoffDifferenceSums = new int[size * size];
+            utilitySums = new int[size];
+            probabilitySums = new double[size];
+        }
+
+        /**
+         * Copy the player's learning state at the start of an epoch.
+         */
+        void reset() {
+            SchemeStore from = player.getStore(), to = copy.getStore();
+            for (int i = 0; i < size; i++) {
+                System.arraycopy(from.payoffDifferenceSums, i * from.capacity, payoffDifferenceSums, i * size, size);
+            }
+            System.arraycopy(payoffDifferenceSums, 0, to.payoffDifferenceSums, 0, size * size);
+            System.arraycopy(from.utilitySums, 0, utilitySums, 0, size);
+            System.arraycopy(from.utilitySums, 0, to.utilitySums, 0, size);
+            System.arraycopy(from.probability, 0, to.probability, 0, size);
+            Arrays.fill(probabilitySums, 0);
+            timestep = player.getTimestep();
+        }
+
+        /**
+         * Play a round on the copy.
+         *
+         * @param my        the index of the scheme this player played
+         * @param utilities the utility each scheme would have had against the opponent's scheme
+         * @param utility   the utility of the scheme this player played
+         * @param solver    sets the probabilities of the copy for the next round
+         */
+        void update(int my, int[] utilities, int utility, Solver solver) {
+            solver.update(copy, my, utilities, utility, ++timestep);
+            double[] probability = copy.getStore().probability;
+            for (int i = 0; i < size; i++) {
+                probabilitySums[i] += probability[i];
+            }
+        }
+
+        /**
+         * @param random a generator
+         * @return the index of a scheme drawn from the copy's probabilities
+         */
+        int select(SplittableRandom random) {
+            double selector = random.nextDouble();
+            double[] probability = copy.getStore().probability;
+            for (int i = 0; i < size; i++) {
+                selector -= probability[i];
+                if (selector <= 0) {
+                    return i;
+                }
+            }
+            return size - 1;
+        }
+
+        /**
+         * Add what the copy gained this epoch to a sum over the chunks.
+         *
+         * @param total the sum of the chunks' gains
+         */
+        void addGains(Learner total) {
+            SchemeStore store = copy.getStore();
+            for (int i = 0; i < size * size; i++) {
+                total.payoffDifferenceSums[i] += store.payoffDifferenceSums[i] - payoffDifferenceSums[i];
+            }
+            for (int i = 0; i < size; i++) {
+                total.utilitySums[i] += store.utilitySums[i] - utilitySums[i];
+                total.probabilitySums[i] += probabilitySums[i];
+            }
+        }
+
+        /**
+         * Zero the sums before adding the chunks' gains.
+         */
+        void clear() {
+            Arrays.fill(payoffDifferenceSums, 0);
+            Arrays.fill(utilitySums, 0);
+            Arrays.fill(probabilitySums, 0);
+        }
+    }
+
+    /**
+     * The rounds of an epoch that one thread plays, with its own generator and learning state.
+     */
+    private static class Chunk {
+        private final Learner player1;
+        private final Learner player2;
+        private final int[] payoffs;        // [i * size2 + j] is the utility of player 1's scheme i against j
+        private final Solver solver;
+        private final int[] utilities1;     // Scratch for the utility of each of player 1's schemes
+        private final int[] utilities2;     // Scratch for the utility of each of player 2's schemes
+        private SplittableRandom random;
+        private int rounds;                 // The number of rounds to play this epoch
+        private int player1Wins;
+        private int player2Wins;
+        private int player1Utility;
+        private int last1;                  // The scheme player 1 played last
+        private int last2;                  // The scheme player 2 played last
+
+        /**
+         * @param player1 the strategy of player 1
+         * @param player2 the strategy of player 2
+         * @param payoffs [i * size2 + j] is the utility of player 1's scheme i against player 2's scheme j
+         * @param solver  sets both players' probabilities each round
+         */
+        Chunk(Strategy player1, Strategy player2, int[] payoffs, Solver solver) {
+            this.player1 = new Learner(player1);
+            this.player2 = new Learner(player2);
+            this.payoffs = payoffs;
+            this.solver = solver;
+            utilities1 = new int[player1.size()];
+            utilities2 = new int[player2.size()];
+        }
+
+        /**
+         * Ready the chunk for an epoch.
+         *
+         * @param seed   the seed of the chunk's generator
+         * @param rounds the number of rounds to play
+         */
+        void reset(long seed, int rounds) {
+            random = new SplittableRandom(seed);
+            this.rounds = rounds;
+            player1.reset();
+            player2.reset();
+            player1Wins = 0;
+            player2Wins = 0;
+            player1Utility = 0;
+        }
+
+        /**
+         * Play the chunk's rounds.
+         */
+        void play() {
+            int size1 = utilities1.length, size2 = utilities2.length;
+            for (int r = 0; r < rounds; r++) {
+                int my1 = player1.select(random);
+                int my2 = player2.select(random);
+                int player1Util = payoffs[my1 * size2 + my2];
+
+                player1Utility += player1Util;
+                if (player1Util > 0) {
+                    player1Wins++;
+                } else if (player1Util < 0) {
+                    player2Wins++;
+                }
+
+                for (int i = 0; i < size1; i++) {
+                    utilities1[i] = payoffs[i * size2 + my2];
+                }
+                for (int j = 0; j < size2; j++) {
+                    utilities2[j] = -payoffs[my1 * size2 + j];
+                }
+                player1.update(my1, utilities1, player1Util, solver);
+                player2.update(my2, utilities2, -player1Util, solver);
+                last1 = my1;
+                last2 = my2;
+            }
+        }
+    }
+}
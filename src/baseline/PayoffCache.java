@@ -0,0 +1,239 @@
+package baseline;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded cache of the battlefield scores of scheme pairs, shared by every driver and thread. Pairs are keyed by
+ * the schemes' ids in canonical order, so a pair scored from either side or rebuilt from JSON hits the same entry,
+ * and by their number of battlefields, since ranks repeat across widths and games of several widths share the cache.
+ * The table is 8-way set-associative over primitive arrays. Each set is guarded by one of a fixed number of striped
+ * locks and evicts with the clock algorithm when full. The cache is off unless the JVM runs with
+ * -Dblotto.payoffCache=true, and the drivers print its counts at the end when it's on.
+ */
+public class PayoffCache {
+    public static final boolean ENABLED = Boolean.getBoolean("blotto.payoffCache"); // Whether callers use it
+    public static final PayoffCache SHARED = new PayoffCache(1 << 16); // The cache used by BaselineDriver.utility
+    private static final int WAYS = 8;
+    private static final int STRIPES = 64;
+    private static final byte EMPTY = 0, UNREFERENCED = 1, REFERENCED = 2;
+
+    private final long[] lowIds;    // lowIds[i] is the smaller scheme id of the pair in slot i
+    private final long[] highIds;   // highIds[i] is the larger scheme id of the pair in slot i
+    private final int[] widths;     // widths[i] is the number of battlefields of the pair in slot i
+    private final int[] scores;     // scores[i] is the packed scores of the pair in slot i, low id's score first
+    private final byte[] state;     // state[i] is EMPTY, or the clock reference bit of slot i
+    private final byte[] hands;     // hands[s] is the clock hand of set s
+    private final Object[] locks = new Object[STRIPES];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Construct an empty cache.
+     *
+     * @param capacity the maximum number of scheme pairs to hold, rounded up to a power of two
+     */
+    public PayoffCache(int capacity) {
+        int slots = Integer.highestOneBit(Math.max(capacity, WAYS) - 1) << 1;
+        lowIds = new long[slots];
+        highIds = new long[slots];
+        widths = new int[slots];
+        scores = new int[slots];
+        state = new byte[slots];
+        hands = new byte[slots / WAYS];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Play player 1's scheme against player 2's scheme, using the cached scores when present.
+     *
+     * @param player1Scheme the scheme for player 1
+     * @param player2Scheme the scheme for player 2
+     * @return the values 1, -1, or 0 if player 1 wins, loses, or ties, respectively
+     */
+    public int utility(Scheme player1Scheme, Scheme player2Scheme) {
+        int packed = scores(player1Scheme, player2Scheme);
+        return Integer.compare(player1Score(packed), player2Score(packed));
+    }
+
+    /**
+     * Score player 1's scheme against player 2's scheme, using the cached scores when present.
+     *
+     * @param player1Scheme the scheme for player 1
+     * @param player2Scheme the scheme for player 2
+     * @return both players' scores packed into an int. Unpack with player1Score and player2Score.
+     */
+    public int scores(Scheme player1Scheme, Scheme player2Scheme) {
+        long id1 = player1Scheme.getId(), id2 = player2Scheme.getId();
+        boolean swapped = id1 > id2;
+        long lowId = swapped ? id2 : id1, highId = swapped ? id1 : id2;
+        int width = player1Scheme.getNumberOfBattlefields();
+        int set = set(lowId, highId, width);
+        Object lock = locks[set & (STRIPES - 1)];
+
+        synchronized (lock) {
+            int slot = find(set, lowId, highId, width);
+            if (slot >= 0) {
+                state[slot] = REFERENCED;
+                hits.increment();
+                return swapped ? swap(scores[slot]) : scores[slot];
+            }
+        }
+        misses.increment();
+
+        // Score outside the lock in canonical order so concurrent misses on other pairs don't wait
+        int packed = swapped ? score(player2Scheme, player1Scheme) : score(player1Scheme, player2Scheme);
+        synchronized (lock) {
+            if (find(set, lowId, highId, width) < 0) {
+                int slot = victim(set);
+                lowIds[slot] = lowId;
+                highIds[slot] = highId;
+                widths[slot] = width;
+                scores[slot] = packed;
+                state[slot] = UNREFERENCED;
+            }
+        }
+        return swapped ? swap(packed) : packed;
+    }
+
+    /**
+     * @param packed the packed scores returned by scores
+     * @return player 1's score
+     */
+    public static int player1Score(int packed) {
+        return packed >>> 16;
+    }
+
+    /**
+     * @param packed the packed scores returned by scores
+     * @return player 2's score
+     */
+    public static int player2Score(int packed) {
+        return packed & 0xFFFF;
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of lookups that had to score the pair
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of pairs evicted to make room for another
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the fraction of lookups answered from the cache
+     */
+    public double getHitRate() {
+        long hitCount = getHits(), lookups = hitCount + getMisses();
+        return lookups == 0 ? 0 : hitCount / (double) lookups;
+    }
+
+    /**
+     * @return the maximum number of scheme pairs the cache holds
+     */
+    public int getCapacity() {
+        return state.length;
+    }
+
+    /**
+     * @param set    the index of the set
+     * @param lowId  the smaller scheme id of the pair
+     * @param highId the larger scheme id of the pair
+     * @param width  the number of battlefields of the pair
+     * @return the slot holding the pair, or -1 if it isn't cached
+     */
+    private int find(int set, long lowId, long highId, int width) {
+        for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+            if (state[slot] != EMPTY && lowIds[slot] == lowId && highIds[slot] == highId && widths[slot] == width) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Choose the slot to store a new pair in: an empty slot if the set has one, otherwise the first slot the clock
+     * hand finds that hasn't been referenced since it last passed.
+     *
+     * @param set the index of the set
+     * @return the slot to overwrite
+     */
+    private int victim(int set) {
+        for (int slot = set * WAYS; slot < (set + 1) * WAYS; slot++) {
+            if (state[slot] == EMPTY) {
+                return slot;
+            }
+        }
+        while (true) {
+            int slot = set * WAYS + hands[set];
+            hands[set] = (byte) ((hands[set] + 1) % WAYS);
+            if (state[slot] == REFERENCED) {
+                state[slot] = UNREFERENCED;
+            } else {
+                evictions.increment();
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * @param lowId  the smaller scheme id of the pair
+     * @param highId the larger scheme id of the pair
+     * @param width  the number of battlefields of the pair
+     * @return the index of the set the pair belongs to
+     */
+    private int set(long lowId, long highId, int width) {
+        long hash = (lowId * 0x9E3779B97F4A7C15L ^ highId) * 0x9E3779B97F4A7C15L ^ width;
+        hash ^= hash >>> 32;
+        hash *= 0xBF58476D1CE4E5B9L;
+        return (int) (hash ^ hash >>> 29) & (hands.length - 1);
+    }
+
+    /**
+     * @param packed packed scores
+     * @return the packed scores from the other player's side
+     */
+    private static int swap(int packed) {
+        return player2Score(packed) << 16 | player1Score(packed);
+    }
+
+    /**
+     * Play player 1's scheme against player 2's scheme. Battlefield b is worth b + 1.
+     *
+     * @param player1Scheme the scheme for player 1
+     * @param player2Scheme the scheme for player 2
+     * @return both players' scores packed into an int
+     */
+    private static int score(Scheme player1Scheme, Scheme player2Scheme) {
+        int player1Score = 0, player2Score = 0;
+        for (int b = 0; b < player1Scheme.getNumberOfBattlefields(); b++) {
+            if (player1Scheme.getBattlefieldTroops(b) > player2Scheme.getBattlefieldTroops(b)) {
+                player1Score += b + 1;
+            } else if (player1Scheme.getBattlefieldTroops(b) < player2Scheme.getBattlefieldTroops(b)) {
+                player2Score += b + 1;
+            }
+        }
+        return player1Score << 16 | player2Score;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits: %d, misses: %d, evictions: %d, hit rate: %.2f%%, capacity: %d",
+                getHits(), getMisses(), getEvictions(), getHitRate() * 100, getCapacity());
+    }
+}
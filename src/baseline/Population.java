@@ -0,0 +1,55 @@
+package baseline;
+
+/**
+ * A population of schemes addressed by row, with what fitness evaluation reads and writes of each. Strategy keeps its
+ * rows in a SchemeStore on the heap. OffHeapPopulation keeps far more rows outside it for evaluation at enumeration
+ * or archive scale.
+ */
+public interface Population {
+    /**
+     * @return the number of schemes
+     */
+    int size();
+
+    /**
+     * @return the number of battlefields in this instance of Colonel Blotto
+     */
+    int getNumberOfBattlefields();
+
+    /**
+     * @param row    the index of the scheme
+     * @param troops receives the number of troops on each battlefield of the scheme
+     */
+    void getTroops(int row, int[] troops);
+
+    /**
+     * @param row the index of the scheme
+     * @return the average probability of the scheme
+     */
+    double getAverageProb(int row);
+
+    /**
+     * @param row the index of the scheme
+     * @return the expected value of the scheme
+     */
+    double getExpectedValue(int row);
+
+    /**
+     * @param row           the index of the scheme
+     * @param expectedValue the expected value of the scheme
+     */
+    void setExpectedValue(int row, double expectedValue);
+
+    /**
+     * Score every scheme against the opponent's scheme. Battlefield b is worth b + 1.
+     *
+     * @param theirTroops the number of troops the opponent's scheme places on each battlefield
+     * @param utilities   receives the values 1, -1, or 0 for each scheme that wins, loses, or ties, respectively
+     */
+    void utilities(int[] theirTroops, int[] utilities);
+
+    /**
+     * Sort the schemes in descending order by their expected value.
+     */
+    void sort();
+}
@@ -0,0 +1,82 @@
+package baseline;
+
+/**
+ * Regret matching over the payoff difference sums of the scheme played, as in Hart and Mas-Colell. The probability of
+ * switching to another scheme is its regret scaled by mu. The optimistic variant counts the latest round's regret
+ * twice, predicting the next round repeats it.
+ */
+class RegretMatching implements Solver {
+    private final boolean optimistic;   // Whether to count the latest round's regret twice
+
+    /**
+     * @param optimistic whether to count the latest round's regret twice
+     */
+    RegretMatching(boolean optimistic) {
+        this.optimistic = optimistic;
+    }
+
+    @Override
+    public void update(Strategy strategy, int my, int[] utilities, int utility, int timestep) {
+        SchemeStore store = strategy.getStore();
+        for (int i = 0; i < store.size; i++) {
+            store.payoffDifferenceSums[my * store.capacity + i] += utilities[i] - utility;
+        }
+        setProbabilities(store, my, optimistic ? utilities : null, utility, timestep);
+    }
+
+    @Override
+    public void resolve(Strategy strategy, int my, int timestep) {
+        setProbabilities(strategy.getStore(), my, null, 0, timestep);
+    }
+
+    /**
+     * Set the probability of switching to each scheme in proportion to its regret.
+     *
+     * @param store     the storage of the strategy
+     * @param my        the index of the scheme this player played last
+     * @param utilities the latest utilities to count twice, or null
+     * @param utility   the latest utility of the scheme this player played
+     * @param timestep  the number of rounds played in the game
+     */
+    private static void setProbabilities(SchemeStore store, int my, int[] utilities, int utility, int timestep) {
+        int size = store.size, capacity = store.capacity;
+        int[] payoffDifferenceSums = store.payoffDifferenceSums;
+        double[] probability = store.probability;
+
+        // Suggested that mu >= ([number of schemes] - 1) * (Max difference in utility)
+        int mu = (size - 1) * (1 - (-1));
+
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            if (i != my) {
+                int payoffDiffSum = payoffDifferenceSums[my * capacity + i]
+                        + (utilities != null ? utilities[i] - utility : 0);
+                probability[i] = payoffDiffSum > 0 ? 1.0 / timestep / mu * payoffDiffSum : 0;
+                sum += probability[i];
+            }
+        }
+
+        // Account for double precision error
+        if (Math.abs(sum - 1) < .00001) {
+            sum = 1;
+        }
+
+        if (sum > 1) {
+            if (utilities == null) {
+                throw new RuntimeException("Ooops!!!  Need a better mu");
+            }
+
+            // The doubled regret can outgrow mu early in a game, so switch away in proportion to it
+            for (int i = 0; i < size; i++) {
+                probability[i] /= sum;
+            }
+            sum = 1;
+        }
+        probability[my] = 1 - sum;
+    }
+
+    @Override
+    public String toString() {
+        return optimistic ? "optimistic-regret" : "regret";
+    }
+}
@@ -0,0 +1,143 @@
+package baseline;
+
+import java.util.Locale;
+
+/**
+ * The parameters of one run of a driver. The defaults are the values the drivers were tuned with. Parameters are
+ * named after the constants they replace so a sweep spec can refer to them.
+ */
+public class RunConfig {
+    public static final RunConfig DEFAULT = new RunConfig(10, 50, 10_000, 10, 100, EA.ELITISM_RATE, EA.MUTATION_RATE);
+    public static final String[] PARAMETERS = {"NUMBER_OF_BATTLEFIELDS", "GAMES", "ROUNDS_PER_GAME", "STRATEGY_SIZE",
+            "TROOP_COUNT", "ELITISM_RATE", "MUTATION_RATE"};
+
+    private final int numberOfBattlefields;
+    private final int games;            // The minimum number of games to play
+    private final int roundsPerGame;
+    private final int strategySize;
+    private final int troopCount;
+    private final double elitismRate;   // The rate to bring the elite schemes to the next generation
+    private final double mutationRate;  // The rate to mutate an offspring
+
+    /**
+     * Construct the parameters of a run.
+     *
+     * @param numberOfBattlefields the number of battlefields in this instance of Colonel Blotto
+     * @param games                the minimum number of games to play
+     * @param roundsPerGame        the number of rounds in each game
+     * @param strategySize         the number of schemes in each strategy
+     * @param troopCount           the number of troops each player can allocate
+     * @param elitismRate          the rate to bring the elite schemes to the next generation
+     * @param mutationRate         the rate to mutate an offspring
+     */
+    public RunConfig(int numberOfBattlefields, int games, int roundsPerGame, int strategySize, int troopCount,
+                     double elitismRate, double mutationRate) {
+        this.numberOfBattlefields = numberOfBattlefields;
+        this.games = games;
+        this.roundsPerGame = roundsPerGame;
+        this.strategySize = strategySize;
+        this.troopCount = troopCount;
+        this.elitismRate = elitismRate;
+        this.mutationRate = mutationRate;
+    }
+
+    /**
+     * @param parameter the name of a parameter in PARAMETERS
+     * @param value     the new value of the parameter
+     * @return a copy of these parameters with one changed
+     * @throws IllegalArgumentException if there is no such parameter
+     */
+    public RunConfig with(String parameter, double value) {
+        switch (parameter) {
+            case "NUMBER_OF_BATTLEFIELDS":
+                return new RunConfig((int) value, games, roundsPerGame, strategySize, troopCount, elitismRate,
+                        mutationRate);
+            case "GAMES":
+                return new RunConfig(numberOfBattlefields, (int) value, roundsPerGame, strategySize, troopCount,
+                        elitismRate, mutationRate);
+            case "ROUNDS_PER_GAME":
+                return new RunConfig(numberOfBattlefields, games, (int) value, strategySize, troopCount, elitismRate,
+                        mutationRate);
+            case "STRATEGY_SIZE":
+                return new RunConfig(numberOfBattlefields, games, roundsPerGame, (int) value, troopCount, elitismRate,
+                        mutationRate);
+            case "TROOP_COUNT":
+                return new RunConfig(numberOfBattlefields, games, roundsPerGame, strategySize, (int) value, elitismRate,
+                        mutationRate);
+            case "ELITISM_RATE":
+                return new RunConfig(numberOfBattlefields, games, roundsPerGame, strategySize, troopCount, value,
+                        mutationRate);
+            case "MUTATION_RATE":
+                return new RunConfig(numberOfBattlefields, games, roundsPerGame, strategySize, troopCount, elitismRate,
+                        value);
+            default:
+                throw new IllegalArgumentException("Unknown parameter " + parameter);
+        }
+    }
+
+    /**
+     * @return the number of battlefields in this instance of Colonel Blotto
+     */
+    public int getNumberOfBattlefields() {
+        return numberOfBattlefields;
+    }
+
+    /**
+     * @return the minimum number of games to play
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * @return the number of rounds in each game
+     */
+    public int getRoundsPerGame() {
+        return roundsPerGame;
+    }
+
+    /**
+     * @return the number of schemes in each strategy
+     */
+    public int getStrategySize() {
+        return strategySize;
+    }
+
+    /**
+     * @return the number of troops each player can allocate
+     */
+    public int getTroopCount() {
+        return troopCount;
+    }
+
+    /**
+     * @return the rate to bring the elite schemes to the next generation
+     */
+    public double getElitismRate() {
+        return elitismRate;
+    }
+
+    /**
+     * @return the rate to mutate an offspring
+     */
+    public double getMutationRate() {
+        return mutationRate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RunConfig && toString().equals(o.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "NUMBER_OF_BATTLEFIELDS=%d GAMES=%d ROUNDS_PER_GAME=%d STRATEGY_SIZE=%d "
+                        + "TROOP_COUNT=%d ELITISM_RATE=%s MUTATION_RATE=%s", numberOfBattlefields, games, roundsPerGame,
+                strategySize, troopCount, elitismRate, mutationRate);
+    }
+}
@@ -0,0 +1,191 @@
+package baseline;
+
+/**
+ * The optional inputs and outputs of a run of a driver besides its RunConfig. By default a run is quiet, starts from
+ * random schemes, learns by regret matching one round at a time, isn't pruned, breeds without an archive and isn't
+ * checkpointed, observed or traced.
+ */
+public class RunOptions {
+    private boolean verbose;                // Whether to print the result of every game
+    private Checkpointer checkpointer;      // Continues the run from its checkpoint and checkpoints it, or null
+    private WarmStart player1Start;         // Draws player 1's first strategy, or null for random schemes
+    private WarmStart player2Start;         // Draws player 2's first strategy, or null for random schemes
+    private SnapshotFeed snapshotFeed;      // Receives snapshots of both players' strategies, or null
+    private TraceRecorder traceRecorder;    // Records every round, or null
+    private int hallOfFameSize;             // The past opponents CoevolvedDriver judges losers against, 0 for none
+    private Solver solver = Solver.REGRET_MATCHING; // Sets both players' probabilities each round
+    private DominancePruner pruner;         // Replaces dominated schemes at the start of every game, or null
+    private ParallelGame parallelGame;      // Plays the rounds of every game in parallel chunks, or null
+    private NoveltyArchive noveltyArchive;  // Keeps evolve from breeding schemes that lost before, or null
+    private int climbSteps;                 // Swaps search.EA climbs a mutated child by, 0 for none
+
+    /**
+     * @return whether to print the result of every game
+     */
+    public boolean isVerbose() {
+        return verbose;
+    }
+
+    /**
+     * @param verbose whether to print the result of every game
+     */
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    /**
+     * @return continues the run from its checkpoint and checkpoints it periodically, or null
+     */
+    public Checkpointer getCheckpointer() {
+        return checkpointer;
+    }
+
+    /**
+     * @param checkpointer continues the run from its checkpoint and checkpoints it periodically, or null
+     */
+    public void setCheckpointer(Checkpointer checkpointer) {
+        this.checkpointer = checkpointer;
+    }
+
+    /**
+     * @return draws player 1's first strategy, or null for random schemes
+     */
+    public WarmStart getPlayer1Start() {
+        return player1Start;
+    }
+
+    /**
+     * @param player1Start draws player 1's first strategy, or null for random schemes
+     */
+    public void setPlayer1Start(WarmStart player1Start) {
+        this.player1Start = player1Start;
+    }
+
+    /**
+     * @return draws player 2's first strategy, or null for random schemes
+     */
+    public WarmStart getPlayer2Start() {
+        return player2Start;
+    }
+
+    /**
+     * @param player2Start draws player 2's first strategy, or null for random schemes
+     */
+    public void setPlayer2Start(WarmStart player2Start) {
+        this.player2Start = player2Start;
+    }
+
+    /**
+     * @return receives snapshots of both players' strategies, or null
+     */
+    public SnapshotFeed getSnapshotFeed() {
+        return snapshotFeed;
+    }
+
+    /**
+     * @param snapshotFeed receives snapshots of both players' strategies, or null
+     */
+    public void setSnapshotFeed(SnapshotFeed snapshotFeed) {
+        this.snapshotFeed = snapshotFeed;
+    }
+
+    /**
+     * @return records every round, or null
+     */
+    public TraceRecorder getTraceRecorder() {
+        return traceRecorder;
+    }
+
+    /**
+     * @param traceRecorder records every round, or null
+     */
+    public void setTraceRecorder(TraceRecorder traceRecorder) {
+        this.traceRecorder = traceRecorder;
+    }
+
+    /**
+     * @return the number of past opponents CoevolvedDriver keeps to judge each loser against, 0 for none
+     */
+    public int getHallOfFameSize() {
+        return hallOfFameSize;
+    }
+
+    /**
+     * @param hallOfFameSize the number of past opponents CoevolvedDriver keeps to judge each loser against, 0 for none
+     */
+    public void setHallOfFameSize(int hallOfFameSize) {
+        this.hallOfFameSize = hallOfFameSize;
+    }
+
+    /**
+     * @return sets both players' probabilities each round
+     */
+    public Solver getSolver() {
+        return solver;
+    }
+
+    /**
+     * @param solver sets both players' probabilities each round
+     */
+    public void setSolver(Solver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * @return replaces dominated schemes of both players at the start of every game, or null
+     */
+    public DominancePruner getPruner() {
+        return pruner;
+    }
+
+    /**
+     * @param pruner replaces dominated schemes of both players at the start of every game, or null
+     */
+    public void setPruner(DominancePruner pruner) {
+        this.pruner = pruner;
+    }
+
+    /**
+     * @return plays the rounds of every game in parallel chunks, or null to play them one by one
+     */
+    public ParallelGame getParallelGame() {
+        return parallelGame;
+    }
+
+    /**
+     * @param parallelGame plays the rounds of every game in parallel chunks, or null to play them one by one
+     */
+    public void setParallelGame(ParallelGame parallelGame) {
+        this.parallelGame = parallelGame;
+    }
+
+    /**
+     * @return keeps evolve from breeding schemes that lost in earlier generations, or null
+     */
+    public NoveltyArchive getNoveltyArchive() {
+        return noveltyArchive;
+    }
+
+    /**
+     * @param noveltyArchive keeps evolve from breeding schemes that lost in earlier generations, or null to breed
+     *                       without memory
+     */
+    public void setNoveltyArchive(NoveltyArchive noveltyArchive) {
+        this.noveltyArchive = noveltyArchive;
+    }
+
+    /**
+     * @return the most steepest-ascent swaps search.EA applies to a mutated child against the winner, 0 for none
+     */
+    public int getClimbSteps() {
+        return climbSteps;
+    }
+
+    /**
+     * @param climbSteps the most steepest-ascent swaps search.EA applies to a mutated child against the winner, 0 for
+     *                   none
+     */
+    public void setClimbSteps(int climbSteps) {
+        this.climbSteps = climbSteps;
+    }
+}
@@ -0,0 +1,75 @@
+package baseline;
+
+/**
+ * The outcome of one run of a driver.
+ */
+public class RunResult {
+    private final Strategy player1;
+    private final Strategy player2;
+    private final int games;                // The number of games played until the run terminated
+    private final long millis;              // The wall-clock time of the run
+    private final double avgUtilPerGame1;   // Player 1's utility per game averaged over GAMES
+    private final boolean converged;        // Whether the run met its termination checks rather than giving up
+
+    /**
+     * Construct the outcome of a run.
+     *
+     * @param player1         player 1's final strategy
+     * @param player2         player 2's final strategy
+     * @param games           the number of games played until the run terminated
+     * @param millis          the wall-clock time of the run
+     * @param avgUtilPerGame1 player 1's utility per game averaged over GAMES
+     * @param converged       whether the run met its termination checks rather than giving up
+     */
+    public RunResult(Strategy player1, Strategy player2, int games, long millis, double avgUtilPerGame1,
+                     boolean converged) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.games = games;
+        this.millis = millis;
+        this.avgUtilPerGame1 = avgUtilPerGame1;
+        this.converged = converged;
+    }
+
+    /**
+     * @return player 1's final strategy
+     */
+    public Strategy getPlayer1() {
+        return player1;
+    }
+
+    /**
+     * @return player 2's final strategy
+     */
+    public Strategy getPlayer2() {
+        return player2;
+    }
+
+    /**
+     * @return the number of games played until the run terminated
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * @return the wall-clock time of the run in milliseconds
+     */
+    public long getMillis() {
+        return millis;
+    }
+
+    /**
+     * @return player 1's utility per game averaged over GAMES
+     */
+    public double getAvgUtilPerGame1() {
+        return avgUtilPerGame1;
+    }
+
+    /**
+     * @return whether the run met its termination checks rather than giving up
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+}
@@ -2,13 +2,14 @@ package baseline;
 
 import java.util.*;
 
+/**
+ * A troop allocation. A scheme in a strategy is a view of a row of the strategy's SchemeStore, which holds its troops
+ * and learning state. A scheme that isn't in a strategy yet, such as a new child, holds only its troops.
+ */
 public class Scheme implements Comparable<Scheme> {
-    private final int[] scheme;
-    private transient final Map<Scheme, Integer> sumD; // sumD.get(s) is the sum of difference in it's payoff up to time t
-                                                // of not choosing s when they chose this scheme
-    private double averageProb;                 // average probability
-    private transient double probability;       // current probability
-    private transient double expectedValue;     // expected value/fitness
+    private int[] scheme;           // troops of a scheme that isn't in a strategy, otherwise null
+    private SchemeStore store;      // the storage of the strategy this scheme is in, otherwise null
+    private int row;                // this scheme's row in store
 
     /**
      * Construct a new scheme with a random allocation of troops.
@@ -17,88 +18,149 @@ public class Scheme implements Comparable<Scheme> {
      * @param strategySize         the size of strategy that this scheme is in
      * @param troopCount           the number of troops the player can allocate
      */
-    public Scheme(int numberOfBattlefields, int strategySize, int troopCount) throws Exception {
+    public Scheme(int numberOfBattlefields, int strategySize, int troopCount) {
         scheme = new int[numberOfBattlefields];
-        sumD = new HashMap<>(strategySize);
-        probability = 1.0 / strategySize;
+        allocateRandomly(scheme, troopCount);
+    }
 
-        // Randomly allocate the troops
-        Random random = new Random();
+    /**
+     * Construct a new strategy by the method of crossover.
+     *
+     * @param parents    the parent strategies
+     * @param troopCount the number of troops for losing player's strategy pool
+     */
+    public Scheme(Scheme[] parents, int troopCount) {
+        scheme = new int[parents[0].getNumberOfBattlefields()];
+        crossover(parents, troopCount, scheme);
+    }
+
+    /**
+     * Construct a scheme with a given allocation of troops, such as one unranked from an id.
+     *
+     * @param troops the number of troops on each battlefield
+     */
+    public Scheme(int[] troops) {
+        scheme = troops.clone();
+    }
+
+    /**
+     * Construct a view of a scheme in a strategy.
+     *
+     * @param store the storage of the strategy
+     * @param row   the scheme's row in store
+     */
+    Scheme(SchemeStore store, int row) {
+        this.store = store;
+        this.row = row;
+    }
+
+    /**
+     * Replace the troops of this scheme, which must not be in a strategy, by the method of crossover. Lets one scheme
+     * hold each child in turn while the strategy copies the ones it keeps.
+     *
+     * @param parents    the parent strategies
+     * @param troopCount the number of troops for losing player's strategy pool
+     * @throws IllegalStateException if this scheme is in a strategy
+     */
+    public void crossover(Scheme[] parents, int troopCount) {
+        if (store != null) {
+            throw new IllegalStateException(this + " is in a strategy");
+        }
+        crossover(parents, troopCount, scheme);
+    }
+
+    /**
+     * Randomly allocate the troops.
+     *
+     * @param troops     receives the number of troops on each battlefield
+     * @param troopCount the number of troops the player can allocate
+     */
+    static void allocateRandomly(int[] troops, int troopCount) {
+        Scratch scratch = Scratch.get();
+        Random random = scratch.random;
+        Arrays.fill(troops, 0);
         int remainingTroops = troopCount;
 //        while (remainingTroops-- > 0) {
-//            scheme[random.nextInt(numberOfBattlefields)]++;
+//            troops[random.nextInt(troops.length)]++;
 //        }
 
         // Randomly allocate the troops V2
-        Stack<Integer> battlefieldIndices = createBattlefieldIndexStack();
+        int[] battlefieldIndices = scratch.shuffledBattlefields(troops.length);
+        int next = 0;
         while (remainingTroops > 0) {
             int troopsToAllocate = random.nextInt((int) Math.ceil(remainingTroops / 2.) + 1);
-            scheme[battlefieldIndices.pop()] += troopsToAllocate;
+            troops[battlefieldIndices[next++]] += troopsToAllocate;
             remainingTroops -= troopsToAllocate;
 
-            if (battlefieldIndices.isEmpty()) {
-                battlefieldIndices = createBattlefieldIndexStack();
+            if (next == troops.length) {
+                battlefieldIndices = scratch.shuffledBattlefields(troops.length);
+                next = 0;
             }
         }
-        if (Arrays.stream(scheme).sum() > 100) {
-            throw new Exception(this + ": " + Arrays.stream(scheme).sum());
-        }
     }
 
     /**
-     * Construct a new strategy by the method of crossover.
+     * Randomly choose battlefields from each parent to copy to the child up to the troop count of the player.
      *
      * @param parents    the parent strategies
      * @param troopCount the number of troops for losing player's strategy pool
+     * @param child      receives the number of troops on each battlefield of the child
      */
-    public Scheme(Scheme[] parents, int troopCount) {
-        scheme = new int[parents[0].getNumberOfBattlefields()];
-        sumD = new HashMap<>();
-
-        // Stack to hold battlefield indices for random selection
-        Stack<Integer> battlefieldIndices = createBattlefieldIndexStack();
+    static void crossover(Scheme[] parents, int troopCount, int[] child) {
+        Scratch scratch = Scratch.get();
+        int[] battlefieldIndices = scratch.shuffledBattlefields(child.length);
+        Arrays.fill(child, 0);
 
-        // Randomly choose battlefields from each parent to copy to child up to troop count of player
-        Random random = new Random();
         int remainingTroops = troopCount, battlefield = -1;
-        for (int i = 0; i < scheme.length && remainingTroops > 0; i++) {
+        for (int i = 0; i < child.length && remainingTroops > 0; i++) {
             // Select which parent to take troops from
-            Scheme parent = parents[random.nextInt(2)];
+            Scheme parent = parents[scratch.random.nextInt(2)];
 
             // Select which battlefield to take troops from
-            battlefield = battlefieldIndices.pop();
+            battlefield = battlefieldIndices[i];
 
             // Copy troops to battlefield of child scheme
-            scheme[battlefield] = parent.getBattlefieldTroops(battlefield);
+            child[battlefield] = parent.getBattlefieldTroops(battlefield);
 
-            remainingTroops -= parent.getBattlefieldTroops(battlefield);
+            remainingTroops -= child[battlefield];
         }
 
         // Ensure troop count for action is correct. Add or subtract the last battlefield visited
         if (remainingTroops != 0) {
-            scheme[battlefield] += remainingTroops;
+            child[battlefield] += remainingTroops;
         }
     }
 
     /**
-     * Create a stack to hold battlefield indices for random selection
+     * @return whether this scheme is a view of a scheme in a strategy
+     */
+    boolean isInStrategy() {
+        return store != null;
+    }
+
+    /**
+     * @return the index of this scheme in its strategy
+     */
+    int getRow() {
+        return row;
+    }
+
+    /**
+     * Point this view at another row, such as after its strategy is sorted.
      *
-     * @return a stack containing randomized battlefield indices
+     * @param store the storage of the strategy
+     * @param row   the scheme's row in store
      */
-    private Stack<Integer> createBattlefieldIndexStack() {
-        Stack<Integer> battlefieldIndices = new Stack<>();
-        for (int i = 0; i < scheme.length; i++) {
-            battlefieldIndices.push(i);
-        }
-        Collections.shuffle(battlefieldIndices);
-        return battlefieldIndices;
+    void setRow(SchemeStore store, int row) {
+        this.store = store;
+        this.row = row;
     }
 
     /**
-     * @return the current probability
+     * @return the current probability, or 0 if this scheme isn't in a strategy
      */
     public double getProbability() {
-        return probability;
+        return store != null ? store.probability[row] : 0;
     }
 
     /**
@@ -107,14 +169,14 @@ public class Scheme implements Comparable<Scheme> {
      * @param probability the current probability
      */
     public void setProbability(double probability) {
-        this.probability = probability;
+        storeOrThrow().probability[row] = probability;
     }
 
     /**
-     * @return the average probability
+     * @return the average probability, or 0 if this scheme isn't in a strategy
      */
     public double getAverageProb() {
-        return averageProb;
+        return store != null ? store.averageProb[row] : 0;
     }
 
     /**
@@ -123,7 +185,7 @@ public class Scheme implements Comparable<Scheme> {
      * @param averageProb the average probability
      */
     public void setAverageProb(double averageProb) {
-        this.averageProb = averageProb;
+        storeOrThrow().averageProb[row] = averageProb;
     }
 
     /**
@@ -131,7 +193,7 @@ public class Scheme implements Comparable<Scheme> {
      * @return the sum of difference in it's payoff up to this timestep of not choosing otherScheme when they chose this scheme
      */
     public int getPayoffDifferenceSum(Scheme otherScheme) {
-        return sumD.get(otherScheme);
+        return storeOrThrow().payoffDifferenceSums[row * store.capacity + otherScheme.row];
     }
 
     /**
@@ -141,14 +203,14 @@ public class Scheme implements Comparable<Scheme> {
      * @param utility     the difference of utility between playing otherScheme or this scheme against the opponent's scheme
      */
     public void updatePayoffDifferenceSum(Scheme otherScheme, int utility) {
-        sumD.put(otherScheme, sumD.getOrDefault(otherScheme, 0) + utility);
+        storeOrThrow().payoffDifferenceSums[row * store.capacity + otherScheme.row] += utility;
     }
 
     /**
      * @return the number of battlefields in this instance of Colonel Blotto
      */
     public int getNumberOfBattlefields() {
-        return scheme.length;
+        return store != null ? store.numberOfBattlefields : scheme.length;
     }
 
     /**
@@ -156,14 +218,21 @@ public class Scheme implements Comparable<Scheme> {
      * @return the number of troops on battlefield index
      */
     public int getBattlefieldTroops(int index) {
-        return scheme[index];
+        return store != null ? store.getTroops(row, index) : scheme[index];
+    }
+
+    /**
+     * @return the rank of the troop allocation from SchemeRank. Equal schemes share an id.
+     */
+    public long getId() {
+        return store != null ? store.getId(row) : SchemeRank.rank(scheme);
     }
 
     /**
-     * @return the expected value
+     * @return the expected value, or 0 if this scheme isn't in a strategy
      */
     public double getExpectedValue() {
-        return expectedValue;
+        return store != null ? store.expectedValue[row] : 0;
     }
 
     /**
@@ -172,7 +241,7 @@ public class Scheme implements Comparable<Scheme> {
      * @param expectedValue the expected value
      */
     public void setExpectedValue(double expectedValue) {
-        this.expectedValue = expectedValue;
+        storeOrThrow().expectedValue[row] = expectedValue;
     }
 
     /**
@@ -182,9 +251,9 @@ public class Scheme implements Comparable<Scheme> {
      * @param battlefield2 the index of another battlefield
      */
     public void swapTroops(int battlefield1, int battlefield2) {
-        int temp = scheme[battlefield1];
-        scheme[battlefield1] = scheme[battlefield2];
-        scheme[battlefield2] = temp;
+        int temp = getBattlefieldTroops(battlefield1);
+        setBattlefieldTroops(battlefield1, getBattlefieldTroops(battlefield2));
+        setBattlefieldTroops(battlefield2, temp);
     }
 
     /**
@@ -195,8 +264,8 @@ public class Scheme implements Comparable<Scheme> {
      * @param troopsToMove the number of troops to move
      */
     public void moveTroops(int troopsTo, int troopsFrom, int troopsToMove) {
-        scheme[troopsTo] += troopsToMove;
-        scheme[troopsFrom] -= troopsToMove;
+        setBattlefieldTroops(troopsTo, getBattlefieldTroops(troopsTo) + troopsToMove);
+        setBattlefieldTroops(troopsFrom, getBattlefieldTroops(troopsFrom) - troopsToMove);
     }
 
     /**
@@ -205,13 +274,37 @@ public class Scheme implements Comparable<Scheme> {
      * @param strategySize the size of strategy that this scheme is in
      */
     public void resetScheme(int strategySize) {
-        probability = 1.0 / strategySize;
-        sumD.clear();
+        storeOrThrow().probability[row] = 1.0 / strategySize;
+        Arrays.fill(store.payoffDifferenceSums, row * store.capacity, row * store.capacity + store.size, 0);
+        store.utilitySums[row] = 0;
+    }
+
+    /**
+     * @param index the index of the battlefield
+     * @param troops the number of troops to place on battlefield index
+     */
+    private void setBattlefieldTroops(int index, int troops) {
+        if (store != null) {
+            store.setTroops(row, index, troops);
+        } else {
+            scheme[index] = troops;
+        }
+    }
+
+    /**
+     * @return the storage of the strategy this scheme is in
+     * @throws IllegalStateException if this scheme isn't in a strategy
+     */
+    private SchemeStore storeOrThrow() {
+        if (store == null) {
+            throw new IllegalStateException(this + " is not in a strategy");
+        }
+        return store;
     }
 
     @Override
     public int compareTo(Scheme scheme) {
-        int compared = Double.compare(expectedValue, scheme.expectedValue);
+        int compared = Double.compare(getExpectedValue(), scheme.getExpectedValue());
         if (compared == 0 && !equals(scheme)) {
             int util = baseline.BaselineDriver.utility(this, scheme);
             return util != 0 ? util : 1;
@@ -227,20 +320,29 @@ public class Scheme implements Comparable<Scheme> {
         if (o == null || getClass() != o.getClass()) {
             return false;
         }
-        return Arrays.equals(scheme, ((Scheme) o).scheme);
+        Scheme other = (Scheme) o;
+        if (getNumberOfBattlefields() != other.getNumberOfBattlefields()) {
+            return false;
+        }
+        for (int b = 0; b < getNumberOfBattlefields(); b++) {
+            if (getBattlefieldTroops(b) != other.getBattlefieldTroops(b)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
-        return Arrays.hashCode(scheme);
+        return Long.hashCode(getId());
     }
 
     @Override
     public String toString() {
         StringBuilder description = new StringBuilder("|");
-        for (int battlefieldTroops : scheme) {
-            description.append(String.format("%2d", battlefieldTroops)).append("|");
+        for (int b = 0; b < getNumberOfBattlefields(); b++) {
+            description.append(String.format("%2d", getBattlefieldTroops(b))).append("|");
         }
-        return description.append(" Prob: ").append(averageProb).toString();
+        return description.append(" Prob: ").append(getAverageProb()).toString();
     }
 }
@@ -0,0 +1,130 @@
+package baseline;
+
+/**
+ * Bijective ranking of troop allocations into longs using the combinatorial number system. Allocations over a fixed
+ * number of battlefields are ordered by their troop total, then lexicographically, so every allocation of a given
+ * width has a distinct non-negative rank. Widths and totals whose allocations don't all fit in a long fall back to
+ * a 64-bit fingerprint with the sign bit set, which can't be unranked.
+ */
+public class SchemeRank {
+    private static final long OVERFLOW = Long.MAX_VALUE;
+
+    private SchemeRank() {
+    }
+
+    /**
+     * @param troops the number of troops on each battlefield
+     * @return the rank of the allocation, or a negative fingerprint if the allocation space overflows a long
+     */
+    public static long rank(int[] troops) {
+        int total = 0;
+        for (int battlefieldTroops : troops) {
+            total += battlefieldTroops;
+        }
+
+        // Allocations with a smaller total come first
+        long offset = binomial(total - 1 + troops.length, troops.length);
+        if (binomial(total + troops.length, troops.length) == OVERFLOW) {
+            return fingerprint(troops);
+        }
+
+        // Count the allocations that come before this one on each battlefield using the hockey-stick identity
+        long rank = offset;
+        int remainingTroops = total;
+        for (int b = 0; b < troops.length - 1; b++) {
+            int parts = troops.length - b - 1;
+            rank += binomial(remainingTroops + parts, parts) - binomial(remainingTroops - troops[b] + parts, parts);
+            remainingTroops -= troops[b];
+        }
+        return rank;
+    }
+
+    /**
+     * @param rank                 the rank of an allocation
+     * @param numberOfBattlefields the number of battlefields in the allocation
+     * @return the number of troops on each battlefield
+     * @throws IllegalArgumentException if rank is a fingerprint rather than a rank
+     */
+    public static int[] unrank(long rank, int numberOfBattlefields) {
+        if (rank < 0) {
+            throw new IllegalArgumentException("Fingerprint " + rank + " can't be unranked");
+        }
+
+        // Find the troop total of the allocation
+        int total = 0;
+        while (binomial(total + numberOfBattlefields, numberOfBattlefields) <= rank) {
+            total++;
+        }
+        rank -= binomial(total - 1 + numberOfBattlefields, numberOfBattlefields);
+
+        // Place troops on each battlefield while the allocations they skip are ranked below rank
+        int[] troops = new int[numberOfBattlefields];
+        int remainingTroops = total;
+        for (int b = 0; b < numberOfBattlefields - 1; b++) {
+            int parts = numberOfBattlefields - b - 1;
+            while (troops[b] < remainingTroops) {
+                long skipped = binomial(remainingTroops - troops[b] + parts - 1, parts - 1);
+                if (skipped > rank) {
+                    break;
+                }
+                rank -= skipped;
+                troops[b]++;
+            }
+            remainingTroops -= troops[b];
+        }
+        troops[numberOfBattlefields - 1] = remainingTroops;
+        return troops;
+    }
+
+    /**
+     * @param troops the number of troops on each battlefield
+     * @return a 64-bit fingerprint of the allocation with the sign bit set
+     */
+    static long fingerprint(int[] troops) {
+        long hash = 0;
+        for (int battlefieldTroops : troops) {
+            hash = hash * 1_000_003 + battlefieldTroops;
+        }
+        hash = (hash ^ hash >>> 30) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ hash >>> 27) * 0x94D049BB133111EBL;
+        return (hash ^ hash >>> 31) | Long.MIN_VALUE;
+    }
+
+    /**
+     * @param n the size of the set
+     * @param k the size of the subsets
+     * @return n choose k, 0 if n or k is negative, or OVERFLOW if it doesn't fit in a long
+     */
+    static long binomial(int n, int k) {
+        if (n < 0 || k < 0 || k > n) {
+            return 0;
+        }
+        k = Math.min(k, n - k);
+
+        // After step i the result is (n - k + i) choose i, which never decreases, so any overflow is final
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            long divisor = gcd(result, i);
+            try {
+                result = Math.multiplyExact(result / divisor, (n - k + i) / (i / divisor));
+            } catch (ArithmeticException e) {
+                return OVERFLOW;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param a a positive number
+     * @param b another positive number
+     * @return the greatest common divisor of a and b
+     */
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long remainder = a % b;
+            a = b;
+            b = remainder;
+        }
+        return a;
+    }
+}
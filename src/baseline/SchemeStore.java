@@ -0,0 +1,339 @@
+package baseline;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The struct-of-arrays storage behind a strategy. Troops of every scheme are kept row by row in one contiguous array
+ * whose width is the narrowest that holds the troop budget, with the learning state in parallel primitive arrays.
+ * The schemes of a strategy are views of a row. Rows past size are spare capacity, so schemes can be appended and
+ * removed by swapping with the last row without rebuilding the learning state of the others.
+ */
+class SchemeStore {
+    int size;                               // The number of schemes (rows)
+    int capacity;                           // The number of rows allocated
+    final int numberOfBattlefields;         // The number of battlefields (columns)
+    double[] probability;                   // probability[i] is the current probability of scheme i
+    double[] averageProb;                   // averageProb[i] is the average probability of scheme i
+    double[] expectedValue;                 // expectedValue[i] is the expected value/fitness of scheme i
+    int[] payoffDifferenceSums;             // [i * capacity + j] is the sum of difference in payoff up to time t of not
+                                            // choosing j when they chose i
+    int[] utilitySums;                      // utilitySums[i] is the sum of the utility scheme i would have had
+    private byte[] troops8;                 // Troops when the budget fits in a byte, otherwise null
+    private short[] troops16;               // Troops when the budget fits in a short, otherwise null
+    private int[] troops32;                 // Troops otherwise, otherwise null
+    private long[] ids;                     // ids[i] is the rank of scheme i, valid when hasIds[i] is set
+    private boolean[] hasIds;
+
+    /**
+     * Construct storage for a strategy.
+     *
+     * @param size                 the number of schemes
+     * @param numberOfBattlefields the number of battlefields in this instance of Colonel Blotto
+     * @param troopCount           the most troops any scheme allocates
+     */
+    SchemeStore(int size, int numberOfBattlefields, int troopCount) {
+        this(size, size, numberOfBattlefields, troopCount);
+    }
+
+    /**
+     * Construct storage for a strategy with spare rows.
+     *
+     * @param size                 the number of schemes
+     * @param capacity             the number of rows to allocate, at least size
+     * @param numberOfBattlefields the number of battlefields in this instance of Colonel Blotto
+     * @param troopCount           the most troops any scheme allocates
+     */
+    SchemeStore(int size, int capacity, int numberOfBattlefields, int troopCount) {
+        this.size = size;
+        this.capacity = capacity;
+        this.numberOfBattlefields = numberOfBattlefields;
+        probability = new double[capacity];
+        averageProb = new double[capacity];
+        expectedValue = new double[capacity];
+        payoffDifferenceSums = new int[capacity * capacity];
+        utilitySums = new int[capacity];
+        troops8 = troopCount <= Byte.MAX_VALUE ? new byte[capacity * numberOfBattlefields] : null;
+        troops16 = troops8 == null && troopCount <= Short.MAX_VALUE ? new short[capacity * numberOfBattlefields] : null;
+        troops32 = troops8 == null && troops16 == null ? new int[capacity * numberOfBattlefields] : null;
+        ids = new long[capacity];
+        hasIds = new boolean[capacity];
+    }
+
+    /**
+     * @return the most troops the width of the troop array holds
+     */
+    int getTroopLimit() {
+        return troops8 != null ? Byte.MAX_VALUE : troops16 != null ? Short.MAX_VALUE : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param row         the index of the scheme
+     * @param battlefield the index of the battlefield
+     * @return the number of troops scheme row places on battlefield
+     */
+    int getTroops(int row, int battlefield) {
+        int i = row * numberOfBattlefields + battlefield;
+        if (troops8 != null) {
+            return troops8[i];
+        }
+        return troops16 != null ? troops16[i] : troops32[i];
+    }
+
+    /**
+     * @param row         the index of the scheme
+     * @param battlefield the index of the battlefield
+     * @param troops      the number of troops scheme row places on battlefield
+     */
+    void setTroops(int row, int battlefield, int troops) {
+        int i = row * numberOfBattlefields + battlefield;
+        if (troops8 != null) {
+            troops8[i] = (byte) troops;
+        } else if (troops16 != null) {
+            troops16[i] = (short) troops;
+        } else {
+            troops32[i] = troops;
+        }
+        hasIds[row] = false;
+    }
+
+    /**
+     * @param row the index of the scheme
+     * @return the rank of scheme row from SchemeRank
+     */
+    long getId(int row) {
+        if (!hasIds[row]) {
+            int[] troops = Scratch.get().rankTroops(numberOfBattlefields);
+            for (int b = 0; b < numberOfBattlefields; b++) {
+                troops[b] = getTroops(row, b);
+            }
+            ids[row] = SchemeRank.rank(troops);
+            hasIds[row] = true;
+        }
+        return ids[row];
+    }
+
+    /**
+     * Score every scheme against the opponent's scheme. Battlefield b is worth b + 1.
+     *
+     * @param theirTroops the number of troops the opponent's scheme places on each battlefield
+     * @param utilities   receives the values 1, -1, or 0 for each scheme that wins, loses, or ties, respectively
+     */
+    void utilities(int[] theirTroops, int[] utilities) {
+        for (int row = 0, i = 0; row < size; row++) {
+            int myScore = 0, theirScore = 0;
+            for (int b = 0; b < numberOfBattlefields; b++, i++) {
+                int myTroops = troops8 != null ? troops8[i] : troops16 != null ? troops16[i] : troops32[i];
+                if (myTroops > theirTroops[b]) {
+                    myScore += b + 1;
+                } else if (myTroops < theirTroops[b]) {
+                    theirScore += b + 1;
+                }
+            }
+            utilities[row] = Integer.compare(myScore, theirScore);
+        }
+    }
+
+    /**
+     * Copy a scheme into a row. Learning state is copied if the scheme is already in a strategy.
+     *
+     * @param scheme the scheme to copy
+     * @param id     the id of the scheme
+     * @param row    the index to copy it to
+     */
+    void copy(Scheme scheme, long id, int row) {
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            setTroops(row, b, scheme.getBattlefieldTroops(b));
+        }
+        ids[row] = id;
+        hasIds[row] = true;
+        probability[row] = scheme.isInStrategy() ? scheme.getProbability() : 1.0 / size;
+        averageProb[row] = scheme.getAverageProb();
+        expectedValue[row] = scheme.getExpectedValue();
+    }
+
+    /**
+     * Copy a troop allocation into a row that starts a new game. The payoff difference sums between it and every other
+     * scheme, and its utility sum, start at 0 as for an added row, so nothing the row's previous scheme learned is
+     * kept. Its current probability is 1 / size, and the caller renormalizes the other rows if they are in play.
+     *
+     * @param troops the number of troops on each battlefield
+     * @param id     the rank of the allocation from SchemeRank
+     * @param row    the index to copy it to
+     */
+    void copy(int[] troops, long id, int row) {
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            setTroops(row, b, troops[b]);
+        }
+        ids[row] = id;
+        hasIds[row] = true;
+        probability[row] = 1.0 / size;
+        averageProb[row] = 0;
+        expectedValue[row] = 0;
+        utilitySums[row] = 0;
+        for (int i = 0; i < size; i++) {
+            payoffDifferenceSums[row * capacity + i] = 0;
+            payoffDifferenceSums[i * capacity + row] = 0;
+        }
+    }
+
+    /**
+     * Append a troop allocation as a new row, growing the storage if it's full. The new scheme starts with no
+     * probability, and the payoff difference sums between it and every other scheme start at 0.
+     *
+     * @param troops the number of troops on each battlefield
+     * @param id     the rank of the allocation from SchemeRank
+     * @return the index of the new row
+     */
+    int add(int[] troops, long id) {
+        if (size == capacity) {
+            grow(Math.max(2 * capacity, 1));
+        }
+        int row = size++;
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            setTroops(row, b, troops[b]);
+        }
+        ids[row] = id;
+        hasIds[row] = true;
+        probability[row] = 0;
+        averageProb[row] = 0;
+        expectedValue[row] = 0;
+        utilitySums[row] = 0;
+        for (int i = 0; i < size; i++) {
+            payoffDifferenceSums[row * capacity + i] = 0;
+            payoffDifferenceSums[i * capacity + row] = 0;
+        }
+        return row;
+    }
+
+    /**
+     * Remove a row by moving the last row into its place, carrying its payoff difference sums along both axes.
+     *
+     * @param row the index of the scheme to remove
+     */
+    void remove(int row) {
+        int last = --size;
+        if (row == last) {
+            return;
+        }
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            setTroops(row, b, getTroops(last, b));
+        }
+        ids[row] = ids[last];
+        hasIds[row] = hasIds[last];
+        probability[row] = probability[last];
+        averageProb[row] = averageProb[last];
+        expectedValue[row] = expectedValue[last];
+        utilitySums[row] = utilitySums[last];
+
+        // Move the last row, then the last column, which also moves the last row's entry on the diagonal
+        System.arraycopy(payoffDifferenceSums, last * capacity, payoffDifferenceSums, row * capacity, last + 1);
+        for (int i = 0; i < last; i++) {
+            payoffDifferenceSums[i * capacity + row] = payoffDifferenceSums[i * capacity + last];
+        }
+    }
+
+    /**
+     * Reallocate every array with more rows, keeping the rows in use.
+     *
+     * @param newCapacity the number of rows to allocate
+     */
+    private void grow(int newCapacity) {
+        probability = Arrays.copyOf(probability, newCapacity);
+        averageProb = Arrays.copyOf(averageProb, newCapacity);
+        expectedValue = Arrays.copyOf(expectedValue, newCapacity);
+        utilitySums = Arrays.copyOf(utilitySums, newCapacity);
+        ids = Arrays.copyOf(ids, newCapacity);
+        hasIds = Arrays.copyOf(hasIds, newCapacity);
+        if (troops8 != null) {
+            troops8 = Arrays.copyOf(troops8, newCapacity * numberOfBattlefields);
+        } else if (troops16 != null) {
+            troops16 = Arrays.copyOf(troops16, newCapacity * numberOfBattlefields);
+        } else {
+            troops32 = Arrays.copyOf(troops32, newCapacity * numberOfBattlefields);
+        }
+
+        int[] sums = new int[newCapacity * newCapacity];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(payoffDifferenceSums, i * capacity, sums, i * newCapacity, size);
+        }
+        payoffDifferenceSums = sums;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Copy every row into a new store in another order, carrying the payoff difference sums along both axes.
+     *
+     * @param order order[i] is the row to place at index i
+     * @return the reordered store
+     */
+    SchemeStore reorder(int[] order) {
+        SchemeStore reordered = new SchemeStore(size, capacity, numberOfBattlefields, getTroopLimit());
+        for (int i = 0; i < size; i++) {
+            int row = order[i];
+            for (int b = 0; b < numberOfBattlefields; b++) {
+                reordered.setTroops(i, b, getTroops(row, b));
+            }
+            reordered.probability[i] = probability[row];
+            reordered.averageProb[i] = averageProb[row];
+            reordered.expectedValue[i] = expectedValue[row];
+            reordered.utilitySums[i] = utilitySums[row];
+            reordered.ids[i] = ids[row];
+            reordered.hasIds[i] = hasIds[row];
+            for (int j = 0; j < size; j++) {
+                reordered.payoffDifferenceSums[i * capacity + j] = payoffDifferenceSums[row * capacity + order[j]];
+            }
+        }
+        return reordered;
+    }
+
+    /**
+     * Write every row, including its utility sum, and the payoff difference sums.
+     *
+     * @param out the output to write to
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(size);
+        out.writeInt(numberOfBattlefields);
+        for (int row = 0; row < size; row++) {
+            for (int b = 0; b < numberOfBattlefields; b++) {
+                out.writeInt(getTroops(row, b));
+            }
+            out.writeDouble(probability[row]);
+            out.writeDouble(averageProb[row]);
+            out.writeDouble(expectedValue[row]);
+            out.writeInt(utilitySums[row]);
+        }
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                out.writeInt(payoffDifferenceSums[i * capacity + j]);
+            }
+        }
+    }
+
+    /**
+     * Read a store written by write.
+     *
+     * @param in         the input to read from
+     * @param troopCount the most troops any scheme allocates
+     * @return the store
+     */
+    static SchemeStore read(DataInput in, int troopCount) throws IOException {
+        SchemeStore store = new SchemeStore(in.readInt(), in.readInt(), troopCount);
+        for (int row = 0; row < store.size; row++) {
+            for (int b = 0; b < store.numberOfBattlefields; b++) {
+                store.setTroops(row, b, in.readInt());
+            }
+            store.probability[row] = in.readDouble();
+            store.averageProb[row] = in.readDouble();
+            store.expectedValue[row] = in.readDouble();
+            store.utilitySums[row] = in.readInt();
+        }
+        for (int i = 0; i < store.payoffDifferenceSums.length; i++) {
+            store.payoffDifferenceSums[i] = in.readInt();
+        }
+        return store;
+    }
+}
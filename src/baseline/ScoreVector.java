@@ -0,0 +1,160 @@
+package baseline;
+
+/**
+ * The score margins of one scheme against every scheme in an opponent's strategy. Swapping or moving troops only
+ * changes two battlefields, so the margins are patched from that delta instead of replaying every battlefield
+ * against every opponent scheme. This lets a mutation try many candidate moves per child.
+ */
+public class ScoreVector {
+    private final Scheme scheme;
+    private final Strategy opponent;
+    private final int[] margin;     // margin[j] is this scheme's score minus the score of opponent scheme j
+    private double expectedValue;   // expected utility against the opponent's average probabilities
+
+    /**
+     * Score a scheme against every scheme in the opponent's strategy.
+     *
+     * @param scheme   the scheme to score
+     * @param opponent the opponent's strategy
+     */
+    public ScoreVector(Scheme scheme, Strategy opponent) {
+        this.scheme = scheme;
+        this.opponent = opponent;
+        margin = new int[opponent.size()];
+        for (int j = 0; j < margin.length; j++) {
+            Scheme theirScheme = opponent.get(j);
+            for (int b = 0; b < scheme.getNumberOfBattlefields(); b++) {
+                margin[j] += contribution(b, scheme.getBattlefieldTroops(b), theirScheme.getBattlefieldTroops(b));
+            }
+            expectedValue += theirScheme.getAverageProb() * Integer.signum(margin[j]);
+        }
+    }
+
+    /**
+     * @return the scheme being scored
+     */
+    public Scheme getScheme() {
+        return scheme;
+    }
+
+    /**
+     * @param index the index of the opponent's scheme
+     * @return the values 1, -1, or 0 if the scheme wins, loses, or ties against the opponent's scheme, respectively
+     */
+    public int utility(int index) {
+        return Integer.signum(margin[index]);
+    }
+
+    /**
+     * @return the expected utility of the scheme against the opponent's average probabilities
+     */
+    public double getExpectedValue() {
+        return expectedValue;
+    }
+
+    /**
+     * @param battlefield1 the index of a battlefield
+     * @param battlefield2 the index of another battlefield
+     * @return the expected value the scheme would have after swapping the troops on battlefield1 & battlefield2
+     */
+    public double expectedValueAfterSwap(int battlefield1, int battlefield2) {
+        return patch(battlefield1, scheme.getBattlefieldTroops(battlefield2),
+                battlefield2, scheme.getBattlefieldTroops(battlefield1), false);
+    }
+
+    /**
+     * @param troopsTo     the battlefield to add troops to
+     * @param troopsFrom   the battlefield to take troops from
+     * @param troopsToMove the number of troops to move
+     * @return the expected value the scheme would have after moving the troops
+     * @throws IllegalArgumentException if the move takes more troops than troopsFrom has, or a negative number
+     */
+    public double expectedValueAfterMove(int troopsTo, int troopsFrom, int troopsToMove) {
+        checkMove(troopsFrom, troopsToMove);
+        return patch(troopsTo, scheme.getBattlefieldTroops(troopsTo) + troopsToMove,
+                troopsFrom, scheme.getBattlefieldTroops(troopsFrom) - troopsToMove, false);
+    }
+
+    /**
+     * Swap the number of troops on battlefield1 & battlefield2 of the scheme and patch the margins.
+     *
+     * @param battlefield1 the index of a battlefield
+     * @param battlefield2 the index of another battlefield
+     */
+    public void swapTroops(int battlefield1, int battlefield2) {
+        expectedValue = patch(battlefield1, scheme.getBattlefieldTroops(battlefield2),
+                battlefield2, scheme.getBattlefieldTroops(battlefield1), true);
+        scheme.swapTroops(battlefield1, battlefield2);
+    }
+
+    /**
+     * Move troops to another battlefield of the scheme and patch the margins.
+     *
+     * @param troopsTo     the battlefield to add troops to
+     * @param troopsFrom   the battlefield to take troops from
+     * @param troopsToMove the number of troops to move
+     * @throws IllegalArgumentException if the move takes more troops than troopsFrom has, or a negative number
+     */
+    public void moveTroops(int troopsTo, int troopsFrom, int troopsToMove) {
+        checkMove(troopsFrom, troopsToMove);
+        expectedValue = patch(troopsTo, scheme.getBattlefieldTroops(troopsTo) + troopsToMove,
+                troopsFrom, scheme.getBattlefieldTroops(troopsFrom) - troopsToMove, true);
+        scheme.moveTroops(troopsTo, troopsFrom, troopsToMove);
+    }
+
+    /**
+     * @param troopsFrom   the battlefield to take troops from
+     * @param troopsToMove the number of troops to move
+     * @throws IllegalArgumentException if the move would leave troopsFrom with fewer than 0 troops or takes fewer than
+     *                                  0 troops
+     */
+    private void checkMove(int troopsFrom, int troopsToMove) {
+        if (troopsToMove < 0 || troopsToMove > scheme.getBattlefieldTroops(troopsFrom)) {
+            throw new IllegalArgumentException("Can't move " + troopsToMove + " troops from battlefield " + troopsFrom
+                    + ", which has " + scheme.getBattlefieldTroops(troopsFrom));
+        }
+    }
+
+    /**
+     * Recompute the margins for new troop counts on two battlefields.
+     *
+     * @param battlefield1 the index of a battlefield
+     * @param troops1      the new number of troops on battlefield1
+     * @param battlefield2 the index of another battlefield
+     * @param troops2      the new number of troops on battlefield2
+     * @param apply        whether to store the patched margins
+     * @return the expected value with the new troop counts
+     * @throws IllegalArgumentException if the battlefields are the same
+     */
+    private double patch(int battlefield1, int troops1, int battlefield2, int troops2, boolean apply) {
+        if (battlefield1 == battlefield2) {
+            throw new IllegalArgumentException("Battlefield " + battlefield1 + " can't be patched against itself");
+        }
+        int oldTroops1 = scheme.getBattlefieldTroops(battlefield1);
+        int oldTroops2 = scheme.getBattlefieldTroops(battlefield2);
+        double patchedValue = 0;
+        for (int j = 0; j < margin.length; j++) {
+            Scheme theirScheme = opponent.get(j);
+            int their1 = theirScheme.getBattlefieldTroops(battlefield1);
+            int their2 = theirScheme.getBattlefieldTroops(battlefield2);
+            int patched = margin[j]
+                    - contribution(battlefield1, oldTroops1, their1) - contribution(battlefield2, oldTroops2, their2)
+                    + contribution(battlefield1, troops1, their1) + contribution(battlefield2, troops2, their2);
+            patchedValue += theirScheme.getAverageProb() * Integer.signum(patched);
+            if (apply) {
+                margin[j] = patched;
+            }
+        }
+        return patchedValue;
+    }
+
+    /**
+     * @param battlefield the index of the battlefield
+     * @param myTroops    the number of troops this scheme placed on the battlefield
+     * @param theirTroops the number of troops the opponent's scheme placed on the battlefield
+     * @return the battlefield's payoff if this scheme wins it, its negation if it loses, or 0 on a tie
+     */
+    private static int contribution(int battlefield, int myTroops, int theirTroops) {
+        return myTroops > theirTroops ? battlefield + 1 : myTroops < theirTroops ? -(battlefield + 1) : 0;
+    }
+}
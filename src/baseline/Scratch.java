@@ -0,0 +1,82 @@
+package baseline;
+
+import java.util.Random;
+
+/**
+ * Per-thread buffers and random number generator reused by scheme generation so that generating and crossing over
+ * schemes doesn't allocate.
+ */
+class Scratch {
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    Random random = new Random();           // Replaced when a run is restored from a checkpoint
+    private int[] battlefieldIndices = new int[0];
+    private int[] troops = new int[0];
+    private int[] rankTroops = new int[0];
+    private int[] permutation = new int[0];
+
+    /**
+     * @return the scratch of the current thread
+     */
+    static Scratch get() {
+        return SCRATCH.get();
+    }
+
+    /**
+     * @param numberOfBattlefields the number of battlefields
+     * @return the battlefield indices 0 to numberOfBattlefields - 1 in a random order
+     */
+    int[] shuffledBattlefields(int numberOfBattlefields) {
+        if (battlefieldIndices.length < numberOfBattlefields) {
+            battlefieldIndices = new int[numberOfBattlefields];
+        }
+        for (int i = 0; i < numberOfBattlefields; i++) {
+            battlefieldIndices[i] = i;
+        }
+        for (int i = numberOfBattlefields - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = battlefieldIndices[i];
+            battlefieldIndices[i] = battlefieldIndices[j];
+            battlefieldIndices[j] = temp;
+        }
+        return battlefieldIndices;
+    }
+
+    /**
+     * @param numberOfBattlefields the number of battlefields
+     * @return a buffer to hold one scheme's troops. Its contents are left over from the last use.
+     */
+    int[] troops(int numberOfBattlefields) {
+        if (troops.length != numberOfBattlefields) {
+            troops = new int[numberOfBattlefields];
+        }
+        return troops;
+    }
+
+    /**
+     * @param numberOfBattlefields the number of battlefields
+     * @return a buffer, separate from troops, to hold a scheme's troops while it is ranked
+     */
+    int[] rankTroops(int numberOfBattlefields) {
+        if (rankTroops.length != numberOfBattlefields) {
+            rankTroops = new int[numberOfBattlefields];
+        }
+        return rankTroops;
+    }
+
+    /**
+     * @param size the number of indices
+     * @return the indices 0 to size - 1 in order. Callers may leave it in any order.
+     */
+    int[] permutation(int size) {
+        if (permutation.length != size) {
+            permutation = new int[size];
+        }
+
+        // Start from the identity so a draw depends only on the random number generator, which is checkpointed
+        for (int i = 0; i < size; i++) {
+            permutation[i] = i;
+        }
+        return permutation;
+    }
+}
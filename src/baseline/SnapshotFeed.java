@@ -0,0 +1,77 @@
+package baseline;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The latest average strategy of each player of a run, for readers on other threads such as an evaluator or an
+ * exporter. The run copies both strategies into new snapshots and swaps them in together, so a reader never blocks
+ * the run and always sees a pair of players from the same moment.
+ */
+public class SnapshotFeed {
+    private final int roundInterval;    // The number of rounds between snapshots within a game, 0 for once per game
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicReference<StrategySnapshot[]> players = new AtomicReference<>();
+
+    /**
+     * Construct a feed that publishes once per game.
+     */
+    public SnapshotFeed() {
+        this(0);
+    }
+
+    /**
+     * Construct a feed.
+     *
+     * @param roundInterval the number of rounds between snapshots within a game, 0 for once per game
+     */
+    public SnapshotFeed(int roundInterval) {
+        this.roundInterval = roundInterval;
+    }
+
+    /**
+     * @param round the rounds of the game played so far
+     * @return whether to publish a snapshot within the game after this round
+     */
+    public boolean isDue(int round) {
+        return roundInterval > 0 && round % roundInterval == 0;
+    }
+
+    /**
+     * Copy both players' strategies and make them the latest snapshots.
+     *
+     * @param game    the game being played
+     * @param round   the rounds of the game played
+     * @param player1 player 1's strategy
+     * @param player2 player 2's strategy
+     */
+    public void publish(int game, int round, Strategy player1, Strategy player2) {
+        long version = versions.incrementAndGet();
+        players.set(new StrategySnapshot[]{new StrategySnapshot(version, game, round, player1),
+                new StrategySnapshot(version, game, round, player2)});
+    }
+
+    /**
+     * @return player 1's latest snapshot, or null if none has been published
+     */
+    public StrategySnapshot getPlayer1() {
+        StrategySnapshot[] snapshots = players.get();
+        return snapshots != null ? snapshots[0] : null;
+    }
+
+    /**
+     * @return player 2's latest snapshot, or null if none has been published
+     */
+    public StrategySnapshot getPlayer2() {
+        StrategySnapshot[] snapshots = players.get();
+        return snapshots != null ? snapshots[1] : null;
+    }
+
+    /**
+     * @return both players' latest snapshots from the same moment, or null if none have been published. The array
+     * must not be modified.
+     */
+    public StrategySnapshot[] getPlayers() {
+        return players.get();
+    }
+}
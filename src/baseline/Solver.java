@@ -0,0 +1,50 @@
+package baseline;
+
+/**
+ * A learner that sets a strategy's probabilities each round from the utilities of its schemes against the opponent's
+ * scheme. Strategy.update scores the schemes and keeps the average probabilities, so a solver only decides the next
+ * probabilities. Solvers keep their state in the strategy's storage, so one instance serves every strategy and thread.
+ */
+public interface Solver {
+    Solver REGRET_MATCHING = new RegretMatching(false);
+    Solver OPTIMISTIC_REGRET_MATCHING = new RegretMatching(true);
+    Solver FICTITIOUS_PLAY = new FictitiousPlay();
+    Solver HEDGE = new Hedge(false);
+    Solver OPTIMISTIC_HEDGE = new Hedge(true);
+    Solver[] SOLVERS = {REGRET_MATCHING, OPTIMISTIC_REGRET_MATCHING, FICTITIOUS_PLAY, HEDGE, OPTIMISTIC_HEDGE};
+
+    /**
+     * Set the probability of every scheme for the next round.
+     *
+     * @param strategy  the strategy to update
+     * @param my        the index of the scheme this player played
+     * @param utilities the utility each scheme would have had against the opponent's scheme
+     * @param utility   the utility of the scheme this player played
+     * @param timestep  the number of rounds played in the game, including this one
+     */
+    void update(Strategy strategy, int my, int[] utilities, int utility, int timestep);
+
+    /**
+     * Set the probability of every scheme from the learning state alone, after a batch of rounds was merged into it.
+     * Optimistic solvers have no single latest round to count twice, so they resolve like their plain variants.
+     *
+     * @param strategy the strategy to update
+     * @param my       the index of the scheme this player played last
+     * @param timestep the number of rounds played in the game
+     */
+    void resolve(Strategy strategy, int my, int timestep);
+
+    /**
+     * @param name the name of a solver in SOLVERS, as given by its toString
+     * @return the solver
+     * @throws IllegalArgumentException if there is no such solver
+     */
+    static Solver forName(String name) {
+        for (Solver solver : SOLVERS) {
+            if (solver.toString().equals(name)) {
+                return solver;
+            }
+        }
+        throw new IllegalArgumentException("Unknown solver " + name);
+    }
+}
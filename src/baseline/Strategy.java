@@ -1,13 +1,25 @@
 package baseline;
 
+import com.google.gson.annotations.JsonAdapter;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.*;
 
-public class Strategy implements Iterable<Scheme> {
-    private static final Random RANDOM = new Random();
+/**
+ * A mixed strategy. Troops and learning state of every scheme are kept in a SchemeStore and the schemes are views of
+ * its rows. StrategyAdapter keeps the JSON form a list of schemes.
+ */
+@JsonAdapter(StrategyAdapter.class)
+public class Strategy implements Iterable<Scheme>, Population {
     private Scheme[] strategy;              // Holds the schemes in descending order of expected payoff
-    private transient final int troopCount; // Used in crossover share with resulting child
-    private transient int mu;
-    private transient int timestep;         // The current timestep
+    private SchemeStore store;              // Holds the troops and learning state of the schemes
+    private final int troopCount;           // Used in crossover share with resulting child
+    private int timestep;                   // The current timestep
+    private int[] theirTroops;              // Scratch for the opponent's scheme in update
+    private int[] utilities;                // Scratch for the utility of each scheme in update
+    private ThresholdIndex index;           // Scores the schemes of store in bulk, or null if not built
 
     /**
      * Construct a strategy of schemes with randomly allocated troops.
@@ -17,35 +29,84 @@ public class Strategy implements Iterable<Scheme> {
      * @param troopCount           the number of troops the player can allocate
      */
     public Strategy(int numberOfBattlefields, int size, int troopCount) throws Exception {
-        Set<Scheme> strategySet = new HashSet<>(size);
-        while (strategySet.size() < size) {
-            strategySet.add(new Scheme(numberOfBattlefields, size, troopCount));
+        StrategyBuilder builder = new StrategyBuilder(numberOfBattlefields, size, troopCount);
+        int[] troops = Scratch.get().troops(numberOfBattlefields);
+        while (!builder.isFull()) {
+            Scheme.allocateRandomly(troops, troopCount);
+            builder.add(troops);
         }
-        strategy = strategySet.toArray(new Scheme[0]);
         this.troopCount = troopCount;
-
-        // Suggested that mu >= ([number of schemes] - 1) * (Max difference in utility)
-        mu = (size - 1) * (1 - (-1));
+        setStore(builder.getStore());
     }
 
     /**
      * Construct a strategy from the previous strategy.
      *
      * @param loser       the losing player's strategy
-     * @param strategySet the set of distinct schemes evolved from loser
+     * @param strategySet the distinct schemes evolved from loser
      */
-    public Strategy(Strategy loser, Set<Scheme> strategySet) {
-        strategy = strategySet.toArray(new Scheme[0]);
+    public Strategy(Strategy loser, Collection<Scheme> strategySet) {
         troopCount = loser.troopCount;
-        mu = (strategySet.size() - 1) * (1 - (-1));
+        setSchemes(strategySet);
         resetStrategy();
     }
 
+    /**
+     * Construct a strategy from filled storage.
+     *
+     * @param store      the storage holding every scheme
+     * @param troopCount the number of troops the player can allocate
+     */
+    Strategy(SchemeStore store, int troopCount) {
+        this.troopCount = troopCount;
+        setStore(store);
+    }
+
+    /**
+     * Construct a strategy from schemes, such as ones read from JSON.
+     *
+     * @param schemes    the distinct schemes
+     * @param troopCount the number of troops the player can allocate
+     */
+    Strategy(Collection<Scheme> schemes, int troopCount) {
+        this.troopCount = troopCount;
+        setSchemes(schemes);
+    }
+
+    /**
+     * Copy schemes into new storage and make this strategy's schemes views of it.
+     *
+     * @param schemes the schemes of the strategy
+     */
+    private void setSchemes(Collection<Scheme> schemes) {
+        int numberOfBattlefields = schemes.iterator().next().getNumberOfBattlefields();
+        SchemeStore schemeStore = new SchemeStore(schemes.size(), numberOfBattlefields, troopCount);
+        int row = 0;
+        for (Scheme scheme : schemes) {
+            schemeStore.copy(scheme, scheme.getId(), row++);
+        }
+        setStore(schemeStore);
+    }
+
+    /**
+     * Make this strategy's schemes views of the rows of storage.
+     *
+     * @param schemeStore the storage holding every scheme
+     */
+    private void setStore(SchemeStore schemeStore) {
+        store = schemeStore;
+        index = null;
+        strategy = new Scheme[0];
+        extendViews();
+        theirTroops = new int[store.numberOfBattlefields];
+    }
+
     /**
      * @return the number of schemes
      */
+    @Override
     public int size() {
-        return strategy.length;
+        return store.size;
     }
 
     /**
@@ -56,16 +117,43 @@ public class Strategy implements Iterable<Scheme> {
         return strategy[index];
     }
 
+    @Override
+    public int getNumberOfBattlefields() {
+        return store.numberOfBattlefields;
+    }
+
+    @Override
+    public void getTroops(int row, int[] troops) {
+        for (int b = 0; b < store.numberOfBattlefields; b++) {
+            troops[b] = store.getTroops(row, b);
+        }
+    }
+
+    @Override
+    public double getAverageProb(int row) {
+        return store.averageProb[row];
+    }
+
+    @Override
+    public double getExpectedValue(int row) {
+        return store.expectedValue[row];
+    }
+
+    @Override
+    public void setExpectedValue(int row, double expectedValue) {
+        store.expectedValue[row] = expectedValue;
+    }
+
     /**
      * Choose the next scheme based on their current probability.
      *
      * @return the scheme
      */
     public Scheme getRandom() {
-        double selector = RANDOM.nextDouble();
+        double selector = EA.random().nextDouble();
         int selection = 0;
         while (selection < size()) {
-            selector -= get(selection).getProbability();
+            selector -= store.probability[selection];
             if (selector <= 0) {
                 return get(selection);
             }
@@ -75,40 +163,100 @@ public class Strategy implements Iterable<Scheme> {
     }
 
     /**
-     * Update the accumulated regret and probabilities based on the schemes used.
+     * Update the accumulated regret and probabilities based on the schemes used, with regret matching.
      *
      * @param myScheme    the recently played scheme this player
      * @param theirScheme the enemy's soldier allocation
      * @param utility     the resulting utility from playing these schemes
      */
     public void update(Scheme myScheme, Scheme theirScheme, int utility) {
+        update(myScheme, theirScheme, utility, Solver.REGRET_MATCHING);
+    }
+
+    /**
+     * Update the learning state and probabilities based on the schemes used.
+     *
+     * @param myScheme    the recently played scheme this player
+     * @param theirScheme the enemy's soldier allocation
+     * @param utility     the resulting utility from playing these schemes
+     * @param solver      sets the probabilities for the next round
+     */
+    public void update(Scheme myScheme, Scheme theirScheme, int utility, Solver solver) {
         timestep++;
 
-        for (Scheme scheme : strategy) {
-            myScheme.updatePayoffDifferenceSum(scheme, BaselineDriver.utility(scheme, theirScheme) - utility);
+        // Score every scheme against theirs in one pass over the contiguous troops
+        if (PayoffCache.ENABLED) {
+            for (int i = 0; i < size(); i++) {
+                utilities[i] = BaselineDriver.utility(strategy[i], theirScheme);
+            }
+        } else {
+            for (int b = 0; b < theirTroops.length; b++) {
+                theirTroops[b] = theirScheme.getBattlefieldTroops(b);
+            }
+            utilities(theirTroops, utilities);
         }
 
-        double sum = 0;
-        for (Scheme scheme : strategy) {
-            if (scheme != myScheme) {
-                int payoffDiffSum = myScheme.getPayoffDifferenceSum(scheme);
-                scheme.setProbability(payoffDiffSum > 0 ? 1.0 / timestep / mu * payoffDiffSum : 0);
-                sum += scheme.getProbability();
-            }
+        solver.update(this, myScheme.getRow(), utilities, utility, timestep);
+
+        double[] averageProb = store.averageProb, probability = store.probability;
+        for (int i = 0; i < size(); i++) {
+            averageProb[i] = ((timestep - 1) * averageProb[i] + probability[i]) / timestep;
         }
+    }
 
-        // Account for double precision error
-        if (Math.abs(sum - 1) < .00001) {
-            sum = 1;
+    /**
+     * Merge a batch of rounds played by chunks that each learned from a snapshot of this strategy, then set the
+     * probabilities for the next batch.
+     *
+     * @param payoffDifferenceDeltas [i * size + j] is the payoff difference of not choosing j gained when this player
+     *                               chose i
+     * @param utilityDeltas          the utility each scheme would have gained
+     * @param probabilitySums        the sum of the probabilities of each scheme over the rounds of the batch
+     * @param rounds                 the number of rounds in the batch
+     * @param my                     the index of the scheme this player played last
+     * @param solver                 sets the probabilities for the next batch
+     */
+    void merge(int[] payoffDifferenceDeltas, int[] utilityDeltas, double[] probabilitySums, int rounds, int my,
+               Solver solver) {
+        int size = size();
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                store.payoffDifferenceSums[i * store.capacity + j] += payoffDifferenceDeltas[i * size + j];
+            }
+            store.utilitySums[i] += utilityDeltas[i];
         }
 
-        if (sum > 1) {
-            throw new RuntimeException("Ooops!!!  Need a better mu");
+        double[] averageProb = store.averageProb;
+        for (int i = 0; i < size; i++) {
+            averageProb[i] = (timestep * averageProb[i] + probabilitySums[i]) / (timestep + rounds);
         }
-        myScheme.setProbability(1 - sum);
+        timestep += rounds;
+        solver.resolve(this, my, timestep);
+    }
+
+    /**
+     * @return the number of rounds played in the current game
+     */
+    int getTimestep() {
+        return timestep;
+    }
 
-        for (Scheme scheme : strategy) {
-            scheme.setAverageProb(((timestep - 1) * scheme.getAverageProb() + scheme.getProbability()) / timestep);
+    /**
+     * Score every scheme against the opponent's scheme, through a ThresholdIndex of the store when it's
+     * worthwhile.
+     *
+     * @param theirTroops the number of troops the opponent's scheme places on each battlefield
+     * @param utilities   receives the values 1, -1, or 0 for each scheme that wins, loses, or ties, respectively
+     */
+    @Override
+    public void utilities(int[] theirTroops, int[] utilities) {
+        if (index == null && ThresholdIndex.isWorthwhile(store.size, store.numberOfBattlefields, troopCount)) {
+            index = new ThresholdIndex(store);
+        }
+        if (index != null) {
+            index.utilities(theirTroops, utilities);
+        } else {
+            store.utilities(theirTroops, utilities);
         }
     }
 
@@ -116,8 +264,8 @@ public class Strategy implements Iterable<Scheme> {
      * Reset the expected value for every scheme.
      */
     public void resetExpectedValues() {
-        for (Scheme scheme : strategy) {
-            scheme.setExpectedValue(0);
+        for (int i = 0; i < size(); i++) {
+            strategy[i].setExpectedValue(0);
         }
     }
 
@@ -125,8 +273,8 @@ public class Strategy implements Iterable<Scheme> {
      * Ready the strategy for the next game of Colonel Blotto.
      */
     public void resetStrategy() {
-        for (Scheme scheme : strategy) {
-            scheme.resetScheme(size());
+        for (int i = 0; i < size(); i++) {
+            strategy[i].resetScheme(size());
         }
         timestep = 0;
     }
@@ -134,8 +282,62 @@ public class Strategy implements Iterable<Scheme> {
     /**
      * Sort the schemes in descending order by their expected value.
      */
+    @Override
     public void sort() {
-        Arrays.sort(strategy, Collections.reverseOrder());
+        Arrays.sort(strategy, 0, size(), Collections.reverseOrder());
+
+        // Move the rows of the store into the sorted order
+        int[] order = new int[size()];
+        for (int i = 0; i < size(); i++) {
+            order[i] = strategy[i].getRow();
+        }
+        store = store.reorder(order);
+        index = null;
+        for (int i = 0; i < strategy.length; i++) {
+            strategy[i].setRow(store, i);
+        }
+    }
+
+    /**
+     * Replace a scheme with a new troop allocation at the start of a game. The new scheme starts with no regret,
+     * utility or average probability and 1 / size of the current probability, and the other schemes share the rest of
+     * both probabilities in proportion to theirs, so each still sums to 1.
+     *
+     * @param row    the index of the scheme to replace
+     * @param troops the number of troops on each battlefield
+     * @param id     the rank of the allocation from SchemeRank
+     */
+    void replace(int row, int[] troops, long id) {
+        store.copy(troops, id, row);
+        share(store.probability, row, 1 - 1.0 / size());
+        share(store.averageProb, row, 1);
+        index = null;
+    }
+
+    /**
+     * Scale the values of every scheme but one to a total, in proportion to their values, or equally if they're all 0.
+     *
+     * @param values the values of every row of the store
+     * @param row    the index of the scheme to leave out
+     * @param total  the sum the other schemes' values should have
+     */
+    private void share(double[] values, int row, double total) {
+        double sum = 0;
+        for (int i = 0; i < size(); i++) {
+            sum += i != row ? values[i] : 0;
+        }
+        for (int i = 0; i < size(); i++) {
+            if (i != row) {
+                values[i] = sum > 0 ? values[i] / sum * total : total / (size() - 1);
+            }
+        }
+    }
+
+    /**
+     * @return the storage holding every scheme
+     */
+    SchemeStore getStore() {
+        return store;
     }
 
     /**
@@ -147,34 +349,73 @@ public class Strategy implements Iterable<Scheme> {
 
     /**
      * Reduce the size of the strategy if it contains schemes with 0 average probability. Add schemes if
-     * a scheme has 90%+ probability.
+     * a scheme has 90%+ probability. Schemes are removed by moving the last scheme into their place and added into
+     * spare capacity, so the learning state of the schemes that stay is kept.
      */
-    public void adjustSize(int originalStrategySize) throws Exception {
-        List<Scheme> strategyList = new ArrayList<>();
+    public void adjustSize(int originalStrategySize) {
+        int previousSize = size();
         boolean notDistributedWell = false;
 
-        // Remove schemes with 0 probability
-        for (Scheme scheme : strategy) {
-            if (scheme.getAverageProb() > 0) {
-                strategyList.add(scheme);
-
+        // Remove schemes with 0 probability, from the end so every scheme moved into a gap has been checked
+        for (int i = size() - 1; i >= 0; i--) {
+            if (store.averageProb[i] > 0) {
                 // Check if a scheme has 90%+ probability
-                if (scheme.getAverageProb() > .9) {
+                if (store.averageProb[i] > .9) {
                     notDistributedWell = true;
                 }
+            } else {
+                store.remove(i);
             }
         }
 
-        if (notDistributedWell && strategyList.size() < originalStrategySize) {
+        if (notDistributedWell && size() < originalStrategySize) {
             // Add schemes up to 2x original strategy size
-            int newStrategySize = Math.min((int) Math.round(size() * 1.25), originalStrategySize * 2);
-            for (int i = strategyList.size(); i < newStrategySize; i++) {
-                strategyList.add(new Scheme(strategy[0].getNumberOfBattlefields(), newStrategySize, 100));
+            int newStrategySize = Math.min((int) Math.round(previousSize * 1.25), originalStrategySize * 2);
+            LongSet ids = new LongSet(newStrategySize);
+            for (Scheme scheme : this) {
+                ids.add(scheme.getId());
             }
+            int[] troops = Scratch.get().troops(store.numberOfBattlefields);
+            while (size() < newStrategySize) {
+                Scheme.allocateRandomly(troops, troopCount);
+                long id = SchemeRank.rank(troops);
+                if (ids.add(id)) {
+                    store.add(troops, id);
+                }
+            }
+            extendViews();
         }
+        index = null;
 
-        strategy = strategyList.toArray(new Scheme[0]);
-        mu = (strategy.length - 1) * (1 - (-1));
+        // The removed schemes may have held some of the current probability
+        normalizeProbabilities();
+    }
+
+    /**
+     * Scale the current probabilities to sum to 1, or make them uniform if they sum to 0.
+     */
+    private void normalizeProbabilities() {
+        double sum = 0;
+        for (int i = 0; i < size(); i++) {
+            sum += store.probability[i];
+        }
+        for (int i = 0; i < size(); i++) {
+            store.probability[i] = sum > 0 ? store.probability[i] / sum : 1.0 / size();
+        }
+    }
+
+    /**
+     * Make a view for every row the store has allocated.
+     */
+    private void extendViews() {
+        if (strategy.length < store.capacity) {
+            int viewed = strategy.length;
+            strategy = Arrays.copyOf(strategy, store.capacity);
+            for (int row = viewed; row < strategy.length; row++) {
+                strategy[row] = new Scheme(store, row);
+            }
+            utilities = new int[store.capacity];
+        }
     }
 
     /**
@@ -183,25 +424,50 @@ public class Strategy implements Iterable<Scheme> {
      * @return false if all probabilities are greater than 0, true otherwise
      */
     public boolean hasZeroProbabilities() {
-        for (Scheme scheme : strategy) {
-            if (scheme.getAverageProb() < .0000001) {
+        for (int i = 0; i < size(); i++) {
+            if (strategy[i].getAverageProb() < .0000001) {
                 return true;
             }
         }
         return false;
     }
 
+    /**
+     * Write the schemes and learning state, everything a run needs to continue with this strategy.
+     *
+     * @param out the output to write to
+     */
+    void write(DataOutput out) throws IOException {
+        out.writeInt(troopCount);
+        out.writeInt(timestep);
+        store.write(out);
+    }
+
+    /**
+     * Read a strategy written by write.
+     *
+     * @param in the input to read from
+     * @return the strategy
+     */
+    static Strategy read(DataInput in) throws IOException {
+        int troopCount = in.readInt();
+        int timestep = in.readInt();
+        Strategy strategy = new Strategy(SchemeStore.read(in, troopCount), troopCount);
+        strategy.timestep = timestep;
+        return strategy;
+    }
+
     @Override
     public Iterator<Scheme> iterator() {
-        return Arrays.stream(strategy).iterator();
+        return Arrays.stream(strategy, 0, size()).iterator();
     }
 
     @Override
     public String toString() {
-        int i = 0;
         StringBuilder description = new StringBuilder();
-        for (Scheme scheme : strategy) {
-            description.append(String.format("%2d", ++i)).append(": ").append(scheme).append(System.lineSeparator());
+        for (int i = 0; i < size(); i++) {
+            description.append(String.format("%2d", i + 1)).append(": ").append(strategy[i])
+                    .append(System.lineSeparator());
         }
         return description.toString();
     }
@@ -0,0 +1,91 @@
+package baseline;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes strategies as {"strategy":[{"scheme":[troops...],"averageProb":p},...]}, the form saved under
+ * strategies/, straight from the strategy's SchemeStore.
+ */
+class StrategyAdapter extends TypeAdapter<Strategy> {
+    @Override
+    public void write(JsonWriter out, Strategy strategy) throws IOException {
+        if (strategy == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject().name("strategy").beginArray();
+        for (Scheme scheme : strategy) {
+            out.beginObject().name("scheme").beginArray();
+            for (int b = 0; b < scheme.getNumberOfBattlefields(); b++) {
+                out.value(scheme.getBattlefieldTroops(b));
+            }
+            out.endArray().name("averageProb").value(scheme.getAverageProb()).endObject();
+        }
+        out.endArray().endObject();
+    }
+
+    @Override
+    public Strategy read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<Scheme> schemes = new ArrayList<>();
+        List<Double> averageProbs = new ArrayList<>();
+        int troopCount = 0;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("strategy")) {
+                in.skipValue();
+                continue;
+            }
+            in.beginArray();
+            while (in.hasNext()) {
+                List<Integer> troops = new ArrayList<>();
+                double averageProb = 0;
+                in.beginObject();
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    if (name.equals("scheme")) {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            troops.add(in.nextInt());
+                        }
+                        in.endArray();
+                    } else if (name.equals("averageProb")) {
+                        averageProb = in.nextDouble();
+                    } else {
+                        in.skipValue();
+                    }
+                }
+                in.endObject();
+
+                int[] scheme = new int[troops.size()];
+                int total = 0;
+                for (int b = 0; b < scheme.length; b++) {
+                    scheme[b] = troops.get(b);
+                    total += scheme[b];
+                }
+                troopCount = Math.max(troopCount, total);
+                schemes.add(new Scheme(scheme));
+                averageProbs.add(averageProb);
+            }
+            in.endArray();
+        }
+        in.endObject();
+
+        Strategy strategy = new Strategy(schemes, troopCount);
+        for (int i = 0; i < strategy.size(); i++) {
+            strategy.get(i).setAverageProb(averageProbs.get(i));
+        }
+        return strategy;
+    }
+}
@@ -0,0 +1,90 @@
+package baseline;
+
+/**
+ * Fills the storage of a new strategy one distinct scheme at a time. Schemes are copied straight into the strategy's
+ * SchemeStore, so the same scheme object can be refilled with the next child as soon as it is added.
+ */
+public class StrategyBuilder {
+    private final SchemeStore store;
+    private final LongSet ids;      // The ids of the schemes added so far, to prohibit duplicate schemes
+    private final int troopCount;
+    private int size;
+
+    /**
+     * Construct a builder for a strategy of a given size.
+     *
+     * @param numberOfBattlefields the number of battlefields in this instance of Colonel Blotto
+     * @param strategySize         the number of schemes in the strategy
+     * @param troopCount           the number of troops the player can allocate
+     */
+    public StrategyBuilder(int numberOfBattlefields, int strategySize, int troopCount) {
+        store = new SchemeStore(strategySize, numberOfBattlefields, troopCount);
+        ids = new LongSet(strategySize);
+        this.troopCount = troopCount;
+    }
+
+    /**
+     * Copy a scheme into the strategy unless it is full or already has the scheme. Learning state is copied if the
+     * scheme is in another strategy.
+     *
+     * @param scheme the scheme to add
+     * @return true if the scheme was added
+     */
+    public boolean add(Scheme scheme) {
+        long id = scheme.getId();
+        if (isFull() || !ids.add(id)) {
+            return false;
+        }
+        store.copy(scheme, id, size++);
+        return true;
+    }
+
+    /**
+     * Copy a troop allocation into the strategy unless it is full or already has the allocation.
+     *
+     * @param troops the number of troops on each battlefield
+     * @return true if the allocation was added
+     */
+    boolean add(int[] troops) {
+        long id = SchemeRank.rank(troops);
+        if (isFull() || !ids.add(id)) {
+            return false;
+        }
+        store.copy(troops, id, size++);
+        return true;
+    }
+
+    /**
+     * @return the number of schemes added so far
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return whether the strategy has all of its schemes
+     */
+    public boolean isFull() {
+        return size == store.size;
+    }
+
+    /**
+     * @return the storage being filled
+     */
+    SchemeStore getStore() {
+        return store;
+    }
+
+    /**
+     * @return the strategy, ready for a new game
+     * @throws IllegalStateException if the strategy doesn't have all of its schemes
+     */
+    public Strategy build() {
+        if (!isFull()) {
+            throw new IllegalStateException("Only " + size + " of " + store.size + " schemes added");
+        }
+        Strategy strategy = new Strategy(store, troopCount);
+        strategy.resetStrategy();
+        return strategy;
+    }
+}
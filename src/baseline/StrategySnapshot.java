@@ -0,0 +1,112 @@
+package baseline;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable copy of a player's average strategy taken during a run. Snapshots are published by a SnapshotFeed and
+ * can be read from any thread.
+ */
+public class StrategySnapshot {
+    private final long version;             // Increases with every snapshot published by a feed
+    private final int game;                 // The game being played when the snapshot was taken
+    private final int round;                // The rounds of the game played when the snapshot was taken
+    private final int numberOfBattlefields;
+    private final int troopCount;
+    private final int[] troops;             // [i * numberOfBattlefields + b] is the troops scheme i places on b
+    private final double[] averageProb;     // averageProb[i] is the average probability of scheme i
+
+    /**
+     * Copy a strategy.
+     *
+     * @param version  the version of the snapshot
+     * @param game     the game being played
+     * @param round    the rounds of the game played
+     * @param strategy the strategy to copy
+     */
+    StrategySnapshot(long version, int game, int round, Strategy strategy) {
+        this.version = version;
+        this.game = game;
+        this.round = round;
+        numberOfBattlefields = strategy.get(0).getNumberOfBattlefields();
+        troopCount = strategy.getTroopCount();
+        troops = new int[strategy.size() * numberOfBattlefields];
+        averageProb = new double[strategy.size()];
+        for (int i = 0; i < strategy.size(); i++) {
+            Scheme scheme = strategy.get(i);
+            for (int b = 0; b < numberOfBattlefields; b++) {
+                troops[i * numberOfBattlefields + b] = scheme.getBattlefieldTroops(b);
+            }
+            averageProb[i] = scheme.getAverageProb();
+        }
+    }
+
+    /**
+     * @return the version of the snapshot, which increases with every snapshot published by a feed
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the game being played when the snapshot was taken
+     */
+    public int getGame() {
+        return game;
+    }
+
+    /**
+     * @return the rounds of the game played when the snapshot was taken
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return the number of schemes
+     */
+    public int size() {
+        return averageProb.length;
+    }
+
+    /**
+     * @return the number of battlefields in this instance of Colonel Blotto
+     */
+    public int getNumberOfBattlefields() {
+        return numberOfBattlefields;
+    }
+
+    /**
+     * @param index       the index of the scheme
+     * @param battlefield the index of the battlefield
+     * @return the number of troops the scheme places on the battlefield
+     */
+    public int getTroops(int index, int battlefield) {
+        return troops[index * numberOfBattlefields + battlefield];
+    }
+
+    /**
+     * @param index the index of the scheme
+     * @return the average probability of the scheme
+     */
+    public double getAverageProb(int index) {
+        return averageProb[index];
+    }
+
+    /**
+     * @return a new strategy of the schemes and average probabilities, such as to save as JSON or play
+     */
+    public Strategy toStrategy() {
+        List<Scheme> schemes = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            int[] scheme = new int[numberOfBattlefields];
+            System.arraycopy(troops, i * numberOfBattlefields, scheme, 0, numberOfBattlefields);
+            schemes.add(new Scheme(scheme));
+        }
+        Strategy strategy = new Strategy(schemes, troopCount);
+        for (int i = 0; i < size(); i++) {
+            strategy.get(i).setAverageProb(averageProb[i]);
+        }
+        return strategy;
+    }
+}
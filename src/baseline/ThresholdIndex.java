@@ -0,0 +1,147 @@
+package baseline;
+
+import java.util.Arrays;
+
+/**
+ * A bit-sliced index of a strategy for scoring every scheme of it against one opponent's scheme at once. For each
+ * battlefield and troop level it holds bitsets of the schemes with fewer troops there and of those with at most as
+ * many. Scoring looks up one pair of bitsets per battlefield and adds the battlefield's value to a bit-sliced counter
+ * in every scheme's lane, 64 schemes per word, instead of comparing troops scheme by scheme.
+ * <p>
+ * The counter holds theirScore - myScore + total, where total is the value of all battlefields: each battlefield adds
+ * its value to the lanes the opponent wins and to the lanes it doesn't lose. A scheme wins if its counter is below
+ * total.
+ */
+class ThresholdIndex {
+    static final int MIN_SIZE = 16;         // Below this many schemes comparing troops directly is faster
+    static final int MAX_LENGTH = 1 << 21;  // The most longs to spend on the bitsets of an index
+    private final int size;                 // The number of schemes indexed
+    private final int numberOfBattlefields;
+    private final int levels;               // The number of troop levels, 0 to one past the most troops indexed
+    private final int words;                // The number of longs in a bitset of the schemes
+    private final int bits;                 // The number of bit planes in the counter
+    private final int total;                // The value of all battlefields
+    private final long[] below;             // [((b * levels) + t) * words + w] has the schemes with < t troops on b
+    private final long[] atMost;            // Likewise with the schemes with <= t troops on b
+    private final long[] counter;           // [k * words + w] is bit k of the counter of each lane
+
+    /**
+     * Index the rows of a store.
+     *
+     * @param store the store to index
+     */
+    ThresholdIndex(SchemeStore store) {
+        size = store.size;
+        numberOfBattlefields = store.numberOfBattlefields;
+        int troopCount = 0;
+        for (int row = 0; row < size; row++) {
+            for (int b = 0; b < numberOfBattlefields; b++) {
+                troopCount = Math.max(troopCount, store.getTroops(row, b));
+            }
+        }
+        levels = troopCount + 2; // The top level stands for any more troops than a scheme places
+        words = (size + 63) >>> 6;
+        total = numberOfBattlefields * (numberOfBattlefields + 1) / 2;
+        bits = 64 - Long.numberOfLeadingZeros(2L * total);
+        below = new long[numberOfBattlefields * levels * words];
+        atMost = new long[numberOfBattlefields * levels * words];
+        counter = new long[bits * words];
+
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            // Mark each scheme at its own level, then carry the marks up through the higher levels
+            for (int row = 0; row < size; row++) {
+                int troops = store.getTroops(row, b);
+                long bit = 1L << row;
+                atMost[(b * levels + troops) * words + (row >>> 6)] |= bit;
+                below[(b * levels + troops + 1) * words + (row >>> 6)] |= bit;
+            }
+            for (int t = 1; t < levels; t++) {
+                int level = (b * levels + t) * words, previous = level - words;
+                for (int w = 0; w < words; w++) {
+                    below[level + w] |= below[previous + w];
+                    atMost[level + w] |= atMost[previous + w];
+                }
+            }
+        }
+    }
+
+    /**
+     * Score every indexed scheme against the opponent's scheme, as SchemeStore.utilities does. Not thread safe, since
+     * the counter is reused.
+     *
+     * @param theirTroops the number of troops the opponent's scheme places on each battlefield
+     * @param utilities   receives the values 1, -1, or 0 for each scheme that wins, loses, or ties, respectively
+     */
+    void utilities(int[] theirTroops, int[] utilities) {
+        Arrays.fill(counter, 0);
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            int level = (b * levels + Math.min(theirTroops[b], levels - 1)) * words;
+            add(b + 1, below, level);
+            add(b + 1, atMost, level);
+        }
+
+        // Compare each lane's counter with total from the top bit down
+        Arrays.fill(utilities, 0, size, 0);
+        for (int w = 0; w < words; w++) {
+            long greater = 0, less = 0, equal = -1L;
+            for (int k = bits - 1; k >= 0; k--) {
+                long lane = counter[k * words + w];
+                if ((total >>> k & 1) != 0) {
+                    less |= equal & ~lane;
+                    equal &= lane;
+                } else {
+                    greater |= equal & lane;
+                    equal &= ~lane;
+                }
+            }
+            for (long losses = greater; losses != 0; losses &= losses - 1) {
+                utilities[(w << 6) + Long.numberOfTrailingZeros(losses)] = -1;
+            }
+
+            // Lanes past the last scheme have a counter of 0, so ignore them
+            for (long wins = less & (w == words - 1 && (size & 63) != 0 ? (1L << size) - 1 : -1L); wins != 0;
+                 wins &= wins - 1) {
+                utilities[(w << 6) + Long.numberOfTrailingZeros(wins)] = 1;
+            }
+        }
+    }
+
+    /**
+     * @param size                 the number of schemes
+     * @param numberOfBattlefields the number of battlefields in this instance of Colonel Blotto
+     * @param troopCount           the most troops any scheme allocates
+     * @return whether there are at least MIN_SIZE such schemes and the bitsets of their index fit in MAX_LENGTH longs
+     */
+    static boolean isWorthwhile(int size, int numberOfBattlefields, int troopCount) {
+        return size >= MIN_SIZE && 2L * numberOfBattlefields * (troopCount + 2) * ((size + 63) >>> 6) <= MAX_LENGTH;
+    }
+
+    /**
+     * @return the number of schemes indexed
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Add a value to the counter of every lane in a bitset with a ripple-carry adder over the bit planes.
+     *
+     * @param value   the value to add
+     * @param bitsets the bitsets to take the lanes from
+     * @param offset  the index of the first word of the bitset
+     */
+    private void add(int value, long[] bitsets, int offset) {
+        for (int w = 0; w < words; w++) {
+            long lanes = bitsets[offset + w], carry = 0;
+            for (int k = 0; k < bits && (lanes != 0 || carry != 0); k++) {
+                long addend = (value >>> k & 1) != 0 ? lanes : 0;
+                long plane = counter[k * words + w];
+                counter[k * words + w] = plane ^ addend ^ carry;
+                carry = (plane & addend) | (carry & (plane ^ addend));
+                if ((value >>> k) == 0 && carry == 0) {
+                    break;
+                }
+            }
+        }
+    }
+}
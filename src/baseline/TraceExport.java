@@ -0,0 +1,114 @@
+package baseline;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams a trace written by a TraceRecorder to CSV, one line per record. Scheme records list the troops of the scheme
+ * when its id can be unranked.
+ * <p>
+ * Usage: java baseline.TraceExport trace.bin [trace.csv]
+ */
+public class TraceExport {
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java baseline.TraceExport trace.bin [trace.csv]");
+            System.exit(2);
+        }
+
+        try (Writer out = new BufferedWriter(args.length > 1
+                ? Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)
+                : new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            export(args[0], out);
+        }
+    }
+
+    /**
+     * Write a trace as CSV.
+     *
+     * @param path the path of the trace
+     * @param out  receives the CSV
+     * @throws IOException if the trace is malformed or can't be read
+     */
+    public static void export(String path, Writer out) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TraceRecorder.RECORD_SIZE * 8192).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.limit(TraceRecorder.HEADER_SIZE);
+            readFully(channel, buffer);
+            buffer.flip();
+            if (buffer.remaining() < TraceRecorder.HEADER_SIZE || buffer.getInt() != TraceRecorder.MAGIC
+                    || buffer.getInt() != TraceRecorder.RECORD_SIZE) {
+                throw new IOException(path + " is not a trace");
+            }
+            int numberOfBattlefields = buffer.getInt();
+            buffer.clear();
+
+            out.write("record,game,round,player,scheme,player2Scheme,utility,probability,id,troops\n");
+            StringBuilder line = new StringBuilder();
+            while (readFully(channel, buffer)) {
+                buffer.flip();
+                while (buffer.remaining() >= TraceRecorder.RECORD_SIZE) {
+                    line.setLength(0);
+                    byte kind = buffer.get();
+                    byte value = buffer.get();
+                    short scheme = buffer.getShort();
+                    int game = buffer.getInt();
+                    if (kind == TraceRecorder.ROUND) {
+                        int round = buffer.getInt();
+                        short player2Scheme = buffer.getShort();
+                        buffer.getShort();
+                        line.append("round,").append(game).append(',').append(round).append(",,").append(scheme)
+                                .append(',').append(player2Scheme).append(',').append(value).append(",,,");
+                    } else if (kind == TraceRecorder.PROBABILITY) {
+                        int round = buffer.getInt();
+                        float probability = buffer.getFloat();
+                        line.append("probability,").append(game).append(',').append(round).append(',').append(value)
+                                .append(',').append(scheme).append(",,,").append(probability).append(",,");
+                    } else if (kind == TraceRecorder.SCHEME) {
+                        long id = buffer.getLong();
+                        line.append("scheme,").append(game).append(",,").append(value).append(',').append(scheme)
+                                .append(",,,,").append(id).append(',');
+                        if (id >= 0) {
+                            int[] troops = SchemeRank.unrank(id, numberOfBattlefields);
+                            for (int b = 0; b < troops.length; b++) {
+                                line.append(b > 0 ? " " : "").append(troops[b]);
+                            }
+                        }
+                    } else {
+                        throw new IOException("Unknown record kind " + kind + " in " + path);
+                    }
+                    out.append(line).append('\n');
+                }
+                buffer.compact();
+            }
+        }
+    }
+
+    /**
+     * Fill a buffer from a channel.
+     *
+     * @param channel the channel to read
+     * @param buffer  the buffer to fill up to its limit
+     * @return false if nothing was read because the channel is at its end
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        boolean read = false;
+        while (buffer.hasRemaining()) {
+            int bytes = channel.read(buffer);
+            if (bytes < 0) {
+                break;
+            }
+            read = true;
+        }
+        return read;
+    }
+}
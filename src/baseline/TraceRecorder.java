@@ -0,0 +1,204 @@
+package baseline;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Records the rounds of a run to a binary trace for offline analysis with TraceExport. Every record is RECORD_SIZE
+ * bytes: a kind, a byte, a short scheme index, the game, then 8 bytes that depend on the kind.
+ * <pre>
+ * ROUND:       utility | player 1's scheme | game | round | player 2's scheme, 0
+ * PROBABILITY: player  | scheme            | game | round | current probability as a float
+ * SCHEME:      player  | scheme            | game | scheme id from SchemeRank as a long
+ * </pre>
+ * Scheme records list both strategies at the start of every game, since rows change between games. Records are put in
+ * one of two direct buffers while a background thread writes the other through a FileChannel.
+ */
+public class TraceRecorder implements AutoCloseable {
+    public static final int MAGIC = 0x45415452;
+    public static final int HEADER_SIZE = 16;
+    public static final int RECORD_SIZE = 16;
+    public static final byte ROUND = 0;
+    public static final byte PROBABILITY = 1;
+    public static final byte SCHEME = 2;
+    private static final int BUFFER_SIZE = RECORD_SIZE * 8192;
+
+    private final FileChannel channel;
+    private final int probabilityInterval;      // The number of rounds between probability records, 0 for none
+    private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<>(2);
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<>(2);
+    private final Thread writer;
+    private ByteBuffer buffer;                  // The buffer records are put in
+    private volatile IOException failure;       // The last error of the writer
+
+    /**
+     * Create a trace.
+     *
+     * @param path                 the path of the trace
+     * @param numberOfBattlefields the number of battlefields in this instance of Colonel Blotto
+     * @param probabilityInterval  the number of rounds between records of every scheme's probability, 0 for none
+     */
+    public TraceRecorder(String path, int numberOfBattlefields, int probabilityInterval) throws IOException {
+        Path file = Paths.get(path);
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.probabilityInterval = probabilityInterval;
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(RECORD_SIZE).putInt(numberOfBattlefields).putInt(probabilityInterval).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        free.add(ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN));
+        writer = new Thread(this::write, "trace-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Record the schemes of both strategies at the start of a game.
+     *
+     * @param game    the game about to be played
+     * @param player1 player 1's strategy
+     * @param player2 player 2's strategy
+     */
+    public void recordStrategies(int game, Strategy player1, Strategy player2) {
+        recordSchemes(game, 1, player1);
+        recordSchemes(game, 2, player2);
+    }
+
+    /**
+     * Record the schemes played in a round.
+     *
+     * @param game          the game being played
+     * @param round         the round of the game, from 0
+     * @param player1Scheme player 1's scheme
+     * @param player2Scheme player 2's scheme
+     * @param player1Util   the values 1, -1, or 0 if player 1 won, lost, or tied, respectively
+     */
+    public void recordRound(int game, int round, Scheme player1Scheme, Scheme player2Scheme, int player1Util) {
+        ByteBuffer record = reserve();
+        record.put(ROUND).put((byte) player1Util).putShort((short) player1Scheme.getRow()).putInt(game).putInt(round)
+                .putShort((short) player2Scheme.getRow()).putShort((short) 0);
+    }
+
+    /**
+     * Record every scheme's current probability if it is time to, every probabilityInterval rounds.
+     *
+     * @param game    the game being played
+     * @param round   the round of the game just played, from 0
+     * @param player1 player 1's strategy
+     * @param player2 player 2's strategy
+     */
+    public void recordProbabilities(int game, int round, Strategy player1, Strategy player2) {
+        if (probabilityInterval <= 0 || (round + 1) % probabilityInterval != 0) {
+            return;
+        }
+        for (int player = 1; player <= 2; player++) {
+            Strategy strategy = player == 1 ? player1 : player2;
+            for (int i = 0; i < strategy.size(); i++) {
+                reserve().put(PROBABILITY).put((byte) player).putShort((short) i).putInt(game).putInt(round)
+                        .putFloat((float) strategy.get(i).getProbability());
+            }
+        }
+    }
+
+    /**
+     * Write the remaining records and close the trace.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (buffer.position() > 0) {
+                swap();
+            }
+            full.put(ByteBuffer.allocate(0));   // Tells the writer to stop
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * @param game     the game about to be played
+     * @param player   1 or 2
+     * @param strategy the player's strategy
+     */
+    private void recordSchemes(int game, int player, Strategy strategy) {
+        for (int i = 0; i < strategy.size(); i++) {
+            reserve().put(SCHEME).put((byte) player).putShort((short) i).putInt(game).putLong(strategy.get(i).getId());
+        }
+    }
+
+    /**
+     * @return the buffer to put the next record in, with room for it
+     */
+    private ByteBuffer reserve() {
+        if (buffer.remaining() < RECORD_SIZE) {
+            swap();
+        }
+        return buffer;
+    }
+
+    /**
+     * Hand the filled buffer to the writer and take the one it has written.
+     */
+    private void swap() {
+        if (failure != null) {
+            throw new UncheckedIOException(failure);
+        }
+        try {
+            buffer.flip();
+            full.put(buffer);
+            buffer = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while recording a trace", e);
+        }
+    }
+
+    /**
+     * Write filled buffers until told to stop.
+     */
+    private void write() {
+        try {
+            while (true) {
+                ByteBuffer filled = full.take();
+                if (filled.capacity() == 0) {
+                    return;
+                }
+                try {
+                    while (filled.hasRemaining()) {
+                        channel.write(filled);
+                    }
+                } catch (IOException e) {
+                    failure = e;
+                }
+                filled.clear();
+                free.put(filled);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package baseline;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Initial strategies sampled from saved ones instead of random schemes. The source is a strategy's JSON file or a
+ * corpus directory of them, such as strategies/baseline. Schemes are drawn in proportion to how often the saved
+ * strategies played them, or uniformly over distinct schemes if deduplicated, and may be perturbed like an offspring
+ * is mutated. Schemes for another number of troops are rescaled, and schemes for another number of battlefields are
+ * skipped. A strategy that can't be filled from the source is topped up with random schemes.
+ */
+public class WarmStart {
+    private static final Gson GSON = new Gson();
+    private static final int DRAWS_PER_SCHEME = 20;     // Draws to attempt per scheme before topping up randomly
+
+    private final String source;
+    private final boolean dedup;
+    private final List<int[]> schemes = new ArrayList<>();  // The troops of every scheme in the source
+    private final double[] cumulativeWeights;               // cumulativeWeights[i] is the weight of schemes 0 to i
+    private final double perturbationRate;                  // The rate to mutate a drawn scheme
+
+    /**
+     * Read the schemes of a source.
+     *
+     * @param source           a strategy's JSON file or a directory of them
+     * @param dedup            whether to draw each distinct scheme with equal weight rather than by how often the
+     *                         saved strategies played it
+     * @param perturbationRate the rate to mutate a drawn scheme
+     */
+    public WarmStart(String source, boolean dedup, double perturbationRate) throws IOException {
+        this.source = source;
+        this.dedup = dedup;
+        this.perturbationRate = perturbationRate;
+
+        List<Double> weights = new ArrayList<>();
+        LongSet ids = new LongSet(64);
+        for (Path file : files(Paths.get(source))) {
+            for (Scheme scheme : read(file)) {
+                int[] troops = new int[scheme.getNumberOfBattlefields()];
+                for (int b = 0; b < troops.length; b++) {
+                    troops[b] = scheme.getBattlefieldTroops(b);
+                }
+                if (dedup && !ids.add(scheme.getId())) {
+                    continue;
+                }
+                schemes.add(troops);
+                weights.add(dedup ? 1 : scheme.getAverageProb());
+            }
+        }
+        if (schemes.isEmpty()) {
+            throw new IOException("No strategies in " + source);
+        }
+
+        // Fall back to equal weights if no saved scheme was ever played
+        cumulativeWeights = new double[schemes.size()];
+        double sum = 0;
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            sum += weights.get(i) > 0 ? weights.get(i) : 0;
+            cumulativeWeights[i] = sum;
+        }
+        if (sum == 0) {
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                cumulativeWeights[i] = i + 1;
+            }
+        }
+    }
+
+    /**
+     * @param file a strategy's JSON file
+     * @return the strategy
+     */
+    public static Strategy read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, Strategy.class);
+        }
+    }
+
+    /**
+     * Draw a strategy of distinct schemes from the source.
+     *
+     * @param numberOfBattlefields the number of battlefields in this instance of Colonel Blotto
+     * @param size                 the number of schemes in the strategy
+     * @param troopCount           the number of troops the player can allocate
+     * @return the strategy, ready for a new game
+     */
+    public Strategy strategy(int numberOfBattlefields, int size, int troopCount) {
+        StrategyBuilder builder = new StrategyBuilder(numberOfBattlefields, size, troopCount);
+        int[] troops = Scratch.get().troops(numberOfBattlefields);
+
+        for (int draw = 0; draw < size * DRAWS_PER_SCHEME && !builder.isFull(); draw++) {
+            int[] saved = schemes.get(select());
+            if (saved.length != numberOfBattlefields || !rescale(saved, troops, troopCount)) {
+                continue;
+            }
+            if (EA.random().nextDouble() < perturbationRate) {
+                EA.mutate(troops);
+            }
+            builder.add(troops);
+        }
+
+        while (!builder.isFull()) {
+            Scheme.allocateRandomly(troops, troopCount);
+            builder.add(troops);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the index of a scheme drawn in proportion to its weight
+     */
+    private int select() {
+        double selector = EA.random().nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        int index = Arrays.binarySearch(cumulativeWeights, selector);
+        return Math.min(index >= 0 ? index + 1 : -index - 1, cumulativeWeights.length - 1);
+    }
+
+    /**
+     * Scale a saved scheme to another number of troops, giving the troops lost to rounding to the battlefields with
+     * the largest remainders.
+     *
+     * @param saved      the number of troops on each battlefield of the saved scheme
+     * @param troops     receives the number of troops on each battlefield of the rescaled scheme
+     * @param troopCount the number of troops the player can allocate
+     * @return false if the saved scheme has no troops
+     */
+    private static boolean rescale(int[] saved, int[] troops, int troopCount) {
+        long total = 0;
+        for (int battlefieldTroops : saved) {
+            total += battlefieldTroops;
+        }
+        if (total == 0) {
+            return false;
+        }
+
+        int remaining = troopCount;
+        for (int b = 0; b < saved.length; b++) {
+            troops[b] = (int) (saved[b] * (long) troopCount / total);
+            remaining -= troops[b];
+        }
+        while (remaining > 0) {
+            int largest = 0;
+            long largestRemainder = -1;
+            for (int b = 0; b < saved.length; b++) {
+                long remainder = saved[b] * (long) troopCount - troops[b] * total;
+                if (remainder > largestRemainder) {
+                    largest = b;
+                    largestRemainder = remainder;
+                }
+            }
+            troops[largest]++;
+            remaining--;
+        }
+        return true;
+    }
+
+    /**
+     * @param source a strategy's JSON file or a directory of them
+     * @return the JSON files of the source in order
+     */
+    private static List<Path> files(Path source) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(source)) {
+            files.add(source);
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(source, "*.json")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        files.sort(null);
+        return files;
+    }
+
+    @Override
+    public String toString() {
+        return source + (dedup ? " dedup" : "") + " perturbation=" + perturbationRate;
+    }
+}
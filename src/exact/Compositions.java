@@ -0,0 +1,118 @@
+package exact;
+
+import baseline.SchemeRank;
+
+/**
+ * Every allocation of exactly troopCount troops over the battlefields, indexed in SchemeRank order. Allocations of one
+ * total have contiguous ranks in lexicographic order, so an index is a rank less the rank of the first allocation,
+ * and the allocations can be streamed from any index by stepping to the lexicographic successor without holding them.
+ */
+public class Compositions {
+    private final int numberOfBattlefields;
+    private final int troopCount;
+    private final long firstRank;   // The rank of the lexicographically first allocation, all troops on the last
+    private final int size;
+
+    /**
+     * @param numberOfBattlefields the number of battlefields in this instance of Colonel Blotto
+     * @param troopCount           the number of troops each player allocates
+     * @throws IllegalArgumentException if the allocations can't be ranked or number more than an int holds
+     */
+    public Compositions(int numberOfBattlefields, int troopCount) {
+        this.numberOfBattlefields = numberOfBattlefields;
+        this.troopCount = troopCount;
+
+        int[] first = new int[numberOfBattlefields], last = new int[numberOfBattlefields];
+        first[numberOfBattlefields - 1] = troopCount;
+        last[0] = troopCount;
+        firstRank = SchemeRank.rank(first);
+        long lastRank = SchemeRank.rank(last);
+        if (firstRank < 0 || lastRank < 0 || lastRank - firstRank >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many allocations of " + troopCount + " troops over "
+                    + numberOfBattlefields + " battlefields");
+        }
+        size = (int) (lastRank - firstRank + 1);
+    }
+
+    /**
+     * @return the number of allocations
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of battlefields in this instance of Colonel Blotto
+     */
+    public int getNumberOfBattlefields() {
+        return numberOfBattlefields;
+    }
+
+    /**
+     * @return the number of troops each player allocates
+     */
+    public int getTroopCount() {
+        return troopCount;
+    }
+
+    /**
+     * @param index the index of an allocation
+     * @return the number of troops on each battlefield
+     */
+    public int[] get(int index) {
+        return SchemeRank.unrank(firstRank + index, numberOfBattlefields);
+    }
+
+    /**
+     * @param troops the number of troops on each battlefield of an allocation of troopCount troops
+     * @return the index of the allocation
+     */
+    public int indexOf(int[] troops) {
+        return (int) (SchemeRank.rank(troops) - firstRank);
+    }
+
+    /**
+     * Step an allocation to the next one in index order: the rightmost battlefield that can take a troop from the
+     * battlefields after it does, and those battlefields start over with all their troops on the last.
+     *
+     * @param troops the number of troops on each battlefield, replaced by those of the next allocation
+     * @return false if troops was the last allocation
+     */
+    public static boolean next(int[] troops) {
+        int last = troops.length - 1;
+        int nonZero = last;
+        while (nonZero >= 0 && troops[nonZero] == 0) {
+            nonZero--;
+        }
+        int battlefield = nonZero == last ? last - 1 : nonZero - 1;
+        if (battlefield < 0) {
+            return false;
+        }
+
+        int suffix = 0;
+        for (int b = battlefield + 1; b <= last; b++) {
+            suffix += troops[b];
+            troops[b] = 0;
+        }
+        troops[battlefield]++;
+        troops[last] = suffix - 1;
+        return true;
+    }
+
+    /**
+     * @param troops1 the number of troops on each battlefield for player 1
+     * @param troops2 the number of troops on each battlefield for player 2
+     * @return the values 1, -1, or 0 if player 1 wins, loses, or ties, respectively
+     */
+    public static int utility(int[] troops1, int[] troops2) {
+        int margin = 0;
+        for (int b = 0; b < troops1.length; b++) {
+            if (troops1[b] > troops2[b]) {
+                margin += b + 1;
+            } else if (troops1[b] < troops2[b]) {
+                margin -= b + 1;
+            }
+        }
+        return Integer.signum(margin);
+    }
+}
@@ -0,0 +1,116 @@
+package exact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * An approximate equilibrium of a symmetric Colonel Blotto game found by fictitious play over every allocation. Each
+ * iteration plays the best response to the average of the allocations played so far, so a player's average strategy
+ * converges to an equilibrium as in Brown and Robinson. The game is symmetric and zero-sum, so its value is 0 and the
+ * best response's expected utility against the average is the average's exploitability, which bounds how far the
+ * average is from equilibrium. Only a column of the payoff matrix is read per iteration, so the solver scales to games
+ * whose matrix is streamed.
+ */
+public class Equilibrium {
+    private final Compositions compositions;
+    private final int[] counts;     // counts[i] is the number of iterations allocation i was played
+    private int iterations;
+    private double exploitability;  // The expected utility of the best response against the average strategy
+
+    /**
+     * Play fictitious play until the average strategy is at most epsilon exploitable or the iterations run out.
+     *
+     * @param matrix        the payoff matrix over every allocation
+     * @param compositions  every allocation
+     * @param epsilon       the exploitability to stop at
+     * @param maxIterations the number of iterations to stop at
+     * @param reportEvery   the number of iterations between progress reports on standard out, 0 for none
+     */
+    public Equilibrium(PayoffMatrix matrix, Compositions compositions, double epsilon, int maxIterations,
+                       int reportEvery) {
+        this.compositions = compositions;
+        int size = matrix.size();
+        counts = new int[size];
+        int[] sums = new int[size];     // sums[i] is the total payoff of allocation i against those played
+
+        // Open with the most even allocation
+        int[] troops = new int[compositions.getNumberOfBattlefields()];
+        for (int b = 0; b < troops.length; b++) {
+            troops[b] = compositions.getTroopCount() / troops.length
+                    + (troops.length - b <= compositions.getTroopCount() % troops.length ? 1 : 0);
+        }
+        int played = compositions.indexOf(troops);
+
+        exploitability = Double.POSITIVE_INFINITY;
+        while (iterations < maxIterations && exploitability > epsilon) {
+            counts[played]++;
+            iterations++;
+
+            // Each block finds its best row, and the first of the blocks' best rows wins ties as one pass would
+            final int column = played;
+            final int[] columnTroops = troops;
+            int[] blockBest = IntStream.range(0, matrix.getBlocks()).parallel()
+                    .map(block -> matrix.addColumn(column, columnTroops, block, sums)).toArray();
+            int best = blockBest[0];
+            for (int candidate : blockBest) {
+                if (sums[candidate] > sums[best]) {
+                    best = candidate;
+                }
+            }
+
+            exploitability = sums[best] / (double) iterations;
+            played = best;
+            troops = compositions.get(best);
+            if (reportEvery > 0 && iterations % reportEvery == 0) {
+                System.out.printf("iteration %d, exploitability %.5f, support %d%n", iterations, exploitability,
+                        getSupport().size());
+            }
+        }
+    }
+
+    /**
+     * @return the number of iterations played
+     */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * @return the expected utility of the best response against the average strategy, which bounds the value of the
+     * game from 0 by at most this much for the average strategy
+     */
+    public double getExploitability() {
+        return exploitability;
+    }
+
+    /**
+     * @param index the index of an allocation
+     * @return the probability of the allocation in the average strategy
+     */
+    public double getProbability(int index) {
+        return counts[index] / (double) iterations;
+    }
+
+    /**
+     * @return the indices of the allocations played, most often first
+     */
+    public List<Integer> getSupport() {
+        List<Integer> support = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                support.add(i);
+            }
+        }
+        support.sort((a, b) -> counts[a] != counts[b] ? Integer.compare(counts[b], counts[a]) : Integer.compare(a, b));
+        return support;
+    }
+
+    /**
+     * @param index the index of an allocation
+     * @return the number of troops on each battlefield of the allocation
+     */
+    public int[] getTroops(int index) {
+        return compositions.get(index);
+    }
+}
@@ -0,0 +1,223 @@
+package exact;
+
+import baseline.EA;
+import baseline.OffHeapPopulation;
+import baseline.Scheme;
+import baseline.SchemeRank;
+import baseline.Strategy;
+import baseline.WarmStart;
+import com.google.gson.Gson;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solve a small Colonel Blotto game exactly over every allocation, as a ground truth to measure the EA drivers
+ * against. The equilibrium is saved in the form of strategies/, with its exploitability and the value of the game, to
+ * exact/[battlefields]x[troops].json, so WarmStart can start a run from it. It's kept out of strategies/, since
+ * ColonelBlotto and League expect every approach there to hold the same numbered files of one game. Every approach in
+ * strategies is then scored against the whole allocation space, held as an OffHeapPopulation and evaluated with
+ * EA.evaluateFitness: its exploitability is the expected utility of the best allocation against it, and 0 for an exact
+ * equilibrium.
+ * <p>
+ * Usage: java exact.ExactDriver [battlefields] [troops] [iterations] [heap | offheap | stream]
+ */
+public class ExactDriver {
+    private static final int NUMBER_OF_BATTLEFIELDS = 5;
+    private static final int TROOP_COUNT = 20;
+    private static final int MAX_ITERATIONS = 100_000;
+    private static final double EPSILON = .001;                 // The exploitability to stop fictitious play at
+    private static final long MATERIALIZE_LIMIT = 1L << 28;     // The largest matrix in bytes to hold by default
+    private static final int REPORT_EVERY = 10_000;
+    private static final Gson GSON = new Gson();
+
+    public static void main(String[] args) throws Exception {
+        int numberOfBattlefields = args.length > 0 ? Integer.parseInt(args[0]) : NUMBER_OF_BATTLEFIELDS;
+        int troopCount = args.length > 1 ? Integer.parseInt(args[1]) : TROOP_COUNT;
+        int maxIterations = args.length > 2 ? Integer.parseInt(args[2]) : MAX_ITERATIONS;
+
+        Compositions compositions = new Compositions(numberOfBattlefields, troopCount);
+        long bytes = (long) compositions.size() * compositions.size();
+        String storage = args.length > 3 ? args[3] : bytes <= MATERIALIZE_LIMIT ? "heap" : "stream";
+        if (!Arrays.asList("heap", "offheap", "stream").contains(storage)) {
+            System.err.println("Usage: java exact.ExactDriver [battlefields] [troops] [iterations] "
+                    + "[heap | offheap | stream]");
+            System.exit(2);
+        }
+
+        long start = System.nanoTime();
+        PayoffMatrix matrix = new PayoffMatrix(compositions, !storage.equals("stream"), storage.equals("offheap"));
+        System.out.printf("%d allocations of %d troops over %d battlefields, %s matrix of %d blocks in %d ms%n",
+                compositions.size(), troopCount, numberOfBattlefields,
+                matrix.isMaterialized() ? storage : "streamed", matrix.getBlocks(),
+                (System.nanoTime() - start) / 1_000_000);
+
+        start = System.nanoTime();
+        Equilibrium equilibrium = new Equilibrium(matrix, compositions, EPSILON, maxIterations, REPORT_EVERY);
+        List<Integer> support = equilibrium.getSupport();
+        System.out.printf("Equilibrium after %d iterations in %d ms: value 0, exploitability %.5f, support %d%n",
+                equilibrium.getIterations(), (System.nanoTime() - start) / 1_000_000,
+                equilibrium.getExploitability(), support.size());
+        for (int i = 0; i < Math.min(10, support.size()); i++) {
+            System.out.printf("%8.5f %s%n", equilibrium.getProbability(support.get(i)),
+                    Arrays.toString(equilibrium.getTroops(support.get(i))));
+        }
+
+        File directory = new File("exact");
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create " + directory);
+        }
+        File export = new File(directory, numberOfBattlefields + "x" + troopCount + ".json");
+        try (FileWriter file = new FileWriter(export)) {
+            file.write(GSON.toJson(export(equilibrium, compositions)));
+        }
+        System.out.println("Saved to " + export);
+
+        // Score every approach against the whole allocation space and against the equilibrium
+        String[] approaches = new File("strategies").list((current, name) -> new File(current, name).isDirectory());
+        if (approaches == null) {
+            return;
+        }
+        Arrays.sort(approaches);
+        start = System.nanoTime();
+        OffHeapPopulation allocations = allocations(compositions);
+        System.out.printf("%nAllocation space held off the heap in %d ms%n", (System.nanoTime() - start) / 1_000_000);
+        System.out.printf("%-16s|%-14s|%-15s|%-9s|%s%n", "approach", "exploitability", "util vs exact", "coverage",
+                "scored in");
+        for (String approach : approaches) {
+            Corpus corpus = new Corpus(new File("strategies", approach), compositions);
+            if (corpus.schemes.size() == 0) {
+                System.out.printf("%-16s| no strategies of %d troops over %d battlefields%n", approach, troopCount,
+                        numberOfBattlefields);
+                continue;
+            }
+            double equilibriumUtility = 0;
+            for (int index : support) {
+                equilibriumUtility += equilibrium.getProbability(index) * corpus.utility(compositions.get(index));
+            }
+            start = System.nanoTime();
+            double exploitability = corpus.exploitability(allocations);
+            System.out.printf("%-16s|%14.5f|%15.5f|%8.2f%%|%d ms%n", approach, exploitability, -equilibriumUtility,
+                    corpus.coverage * 100, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * @param compositions every allocation of the game
+     * @return every allocation, in index order and equally likely, as a population for EA.evaluateFitness
+     */
+    private static OffHeapPopulation allocations(Compositions compositions) {
+        OffHeapPopulation allocations = new OffHeapPopulation(compositions.size(),
+                compositions.getNumberOfBattlefields(), compositions.getTroopCount());
+        int[] allocation = compositions.get(0);
+        long firstRank = SchemeRank.rank(allocation);
+        for (int i = 0; i < compositions.size(); i++, Compositions.next(allocation)) {
+            allocations.add(allocation, firstRank + i, 1.0 / compositions.size());
+        }
+        return allocations;
+    }
+
+    /**
+     * @param equilibrium  the equilibrium
+     * @param compositions every allocation
+     * @return the equilibrium in the form of strategies/, with how it was found
+     */
+    private static Map<String, Object> export(Equilibrium equilibrium, Compositions compositions) {
+        Map<String, Object> export = new LinkedHashMap<>();
+        export.put("numberOfBattlefields", compositions.getNumberOfBattlefields());
+        export.put("troopCount", compositions.getTroopCount());
+        export.put("allocations", compositions.size());
+        export.put("iterations", equilibrium.getIterations());
+        export.put("value", 0);
+        export.put("exploitability", equilibrium.getExploitability());
+        List<Map<String, Object>> strategy = new ArrayList<>();
+        for (int index : equilibrium.getSupport()) {
+            Map<String, Object> scheme = new LinkedHashMap<>();
+            scheme.put("scheme", equilibrium.getTroops(index));
+            scheme.put("averageProb", equilibrium.getProbability(index));
+            strategy.add(scheme);
+        }
+        export.put("strategy", strategy);
+        return export;
+    }
+
+    /**
+     * The saved strategies of an approach as one mixed strategy, drawing a strategy uniformly and then a scheme by
+     * average probability. Only schemes of the game's troops and battlefields are kept.
+     */
+    private static class Corpus {
+        private final OffHeapPopulation schemes;    // Average probabilities are the schemes' weights in the corpus
+        private final double coverage;              // The share of the corpus's probability in schemes of the game
+
+        /**
+         * @param directory    the directory holding the approach's JSON files
+         * @param compositions every allocation of the game
+         */
+        Corpus(File directory, Compositions compositions) throws IOException {
+            File[] files = directory.listFiles((current, name) -> name.endsWith(".json"));
+            List<int[]> troops = new ArrayList<>();
+            List<Double> weights = new ArrayList<>();
+            double kept = 0, total = 0;
+            for (File file : files != null ? files : new File[0]) {
+                Strategy strategy = WarmStart.read(file.toPath());
+                double sum = 0;
+                for (Scheme scheme : strategy) {
+                    sum += scheme.getAverageProb();
+                }
+                for (Scheme scheme : strategy) {
+                    double weight = sum > 0 ? scheme.getAverageProb() / sum : 1.0 / strategy.size();
+                    total += weight;
+                    int[] schemeTroops = new int[scheme.getNumberOfBattlefields()];
+                    int schemeTotal = 0;
+                    for (int b = 0; b < schemeTroops.length; b++) {
+                        schemeTroops[b] = scheme.getBattlefieldTroops(b);
+                        schemeTotal += schemeTroops[b];
+                    }
+                    if (schemeTroops.length == compositions.getNumberOfBattlefields()
+                            && schemeTotal == compositions.getTroopCount()) {
+                        troops.add(schemeTroops);
+                        weights.add(weight);
+                        kept += weight;
+                    }
+                }
+            }
+            schemes = new OffHeapPopulation(troops.size(), compositions.getNumberOfBattlefields(),
+                    compositions.getTroopCount());
+            for (int j = 0; j < troops.size(); j++) {
+                schemes.add(troops.get(j), weights.get(j) / kept);
+            }
+            coverage = total > 0 ? kept / total : 0;
+        }
+
+        /**
+         * @param allocation the number of troops on each battlefield
+         * @return the expected utility of the allocation against the corpus
+         */
+        double utility(int[] allocation) {
+            int[] theirTroops = new int[allocation.length];
+            double utility = 0;
+            for (int j = 0; j < schemes.size(); j++) {
+                schemes.getTroops(j, theirTroops);
+                utility += schemes.getAverageProb(j) * Compositions.utility(allocation, theirTroops);
+            }
+            return utility;
+        }
+
+        /**
+         * Evaluate every allocation against the corpus, which sorts the allocations best first.
+         *
+         * @param allocations every allocation of the game, from ExactDriver.allocations
+         * @return the expected utility of the best allocation against the corpus
+         */
+        double exploitability(OffHeapPopulation allocations) throws Exception {
+            EA.evaluateFitness(allocations, schemes);
+            return allocations.getExpectedValue(0);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package exact;
+
+import java.nio.ByteBuffer;
+import java.util.stream.IntStream;
+
+/**
+ * The payoff matrix of a Colonel Blotto game between every pair of allocations, in blocks of rows that are scored in
+ * parallel. The game is symmetric, so the matrix is antisymmetric and the column of an allocation is its negated
+ * row. A matrix that fits in memory is materialized a byte per entry, on the heap or in direct buffers outside it.
+ * A larger one is streamed: each row is scored again from its allocation whenever it is read.
+ */
+public class PayoffMatrix {
+    public static final int BLOCK_ROWS = 1024;
+
+    private final Compositions compositions;
+    private final int size;
+    private final int blocks;
+    private final byte[][] heapBlocks;          // heapBlocks[k][r * size + j] is the payoff of row k * BLOCK_ROWS + r
+                                                // against column j, or null if not on the heap
+    private final ByteBuffer[] directBlocks;    // The same outside the heap, or null if not off-heap
+
+    /**
+     * Score every pair of allocations if the matrix is to be materialized.
+     *
+     * @param compositions every allocation
+     * @param materialize  whether to hold the matrix rather than score rows when they are read
+     * @param offHeap      whether to hold it in direct buffers rather than on the heap
+     */
+    public PayoffMatrix(Compositions compositions, boolean materialize, boolean offHeap) {
+        this.compositions = compositions;
+        size = compositions.size();
+        blocks = (size + BLOCK_ROWS - 1) / BLOCK_ROWS;
+        if ((long) BLOCK_ROWS * size > Integer.MAX_VALUE) {
+            materialize = false;
+        }
+        heapBlocks = materialize && !offHeap ? new byte[blocks][] : null;
+        directBlocks = materialize && offHeap ? new ByteBuffer[blocks] : null;
+        if (!materialize) {
+            return;
+        }
+
+        IntStream.range(0, blocks).parallel().forEach(k -> {
+            int first = k * BLOCK_ROWS, rows = Math.min(BLOCK_ROWS, size - first);
+            byte[] block = new byte[rows * size];
+            int[] row = compositions.get(first);
+            for (int r = 0; r < rows; r++, Compositions.next(row)) {
+                int[] column = compositions.get(0);
+                for (int j = 0; j < size; j++, Compositions.next(column)) {
+                    block[r * size + j] = (byte) Compositions.utility(row, column);
+                }
+            }
+            if (offHeap) {
+                directBlocks[k] = ByteBuffer.allocateDirect(block.length);
+                directBlocks[k].put(block);
+            } else {
+                heapBlocks[k] = block;
+            }
+        });
+    }
+
+    /**
+     * @return the number of allocations, the number of rows and of columns
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of blocks of rows
+     */
+    public int getBlocks() {
+        return blocks;
+    }
+
+    /**
+     * @return whether the matrix is held rather than scored when read
+     */
+    public boolean isMaterialized() {
+        return heapBlocks != null || directBlocks != null;
+    }
+
+    /**
+     * Add the payoffs of every row of a block against one column to the rows' sums.
+     *
+     * @param column       the index of the column
+     * @param columnTroops the number of troops on each battlefield of the column's allocation
+     * @param block        the index of the block of rows
+     * @param sums         sums[i] receives the payoff of row i against the column
+     * @return the index of the row of the block with the greatest sum afterwards, the first on ties
+     */
+    public int addColumn(int column, int[] columnTroops, int block, int[] sums) {
+        int first = block * BLOCK_ROWS, end = Math.min(first + BLOCK_ROWS, size);
+        if (heapBlocks != null) {
+            // Column entries are the negated entries of the column's row
+            byte[] row = heapBlocks[column / BLOCK_ROWS];
+            int offset = column % BLOCK_ROWS * size;
+            for (int i = first; i < end; i++) {
+                sums[i] -= row[offset + i];
+            }
+        } else if (directBlocks != null) {
+            ByteBuffer row = directBlocks[column / BLOCK_ROWS];
+            int offset = column % BLOCK_ROWS * size;
+            for (int i = first; i < end; i++) {
+                sums[i] -= row.get(offset + i);
+            }
+        } else {
+            int[] troops = compositions.get(first);
+            for (int i = first; i < end; i++, Compositions.next(troops)) {
+                sums[i] += Compositions.utility(troops, columnTroops);
+            }
+        }
+
+        int best = first;
+        for (int i = first + 1; i < end; i++) {
+            if (sums[i] > sums[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
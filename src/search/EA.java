@@ -1,10 +1,10 @@
 package search;
 
+import baseline.NoveltyArchive;
 import baseline.Scheme;
+import baseline.ScoreVector;
 import baseline.Strategy;
-
-import java.util.HashSet;
-import java.util.Set;
+import baseline.StrategyBuilder;
 
 public class EA {
     /**
@@ -15,54 +15,113 @@ public class EA {
      * @return the evolved strategy for this player
      */
     public static Strategy evolve(Strategy loser, Strategy winner) {
-        // Use a set to prohibit duplicate schemes
-        Set<Scheme> strategySet = new HashSet<>();
+        return evolve(loser, winner, baseline.EA.ELITISM_RATE, baseline.EA.MUTATION_RATE);
+    }
+
+    /**
+     * Evolve the strategy for loser.
+     *
+     * @param loser        the losing player's strategy
+     * @param winner       the winning player's strategy
+     * @param elitismRate  the rate to bring the elite schemes to the next generation
+     * @param mutationRate the rate to mutate an offspring
+     * @return the evolved strategy for this player
+     */
+    public static Strategy evolve(Strategy loser, Strategy winner, double elitismRate, double mutationRate) {
+        return evolve(loser, winner, elitismRate, mutationRate, null);
+    }
+
+    /**
+     * Evolve the strategy for loser, breeding no scheme the archive remembers losing unless the parents can't breed
+     * anything else.
+     *
+     * @param loser        the losing player's strategy
+     * @param winner       the winning player's strategy
+     * @param elitismRate  the rate to bring the elite schemes to the next generation
+     * @param mutationRate the rate to mutate an offspring
+     * @param archive      records the discarded schemes and rejects children it remembers, or null
+     * @return the evolved strategy for this player
+     */
+    public static Strategy evolve(Strategy loser, Strategy winner, double elitismRate, double mutationRate,
+                                  NoveltyArchive archive) {
+        return evolve(loser, winner, elitismRate, mutationRate, archive, 0);
+    }
+
+    /**
+     * Evolve the strategy for loser, climbing each mutated child toward a better scheme against the winner and
+     * breeding no scheme the archive remembers losing unless the parents can't breed anything else.
+     *
+     * @param loser        the losing player's strategy
+     * @param winner       the winning player's strategy
+     * @param elitismRate  the rate to bring the elite schemes to the next generation
+     * @param mutationRate the rate to mutate an offspring
+     * @param archive      records the discarded schemes and rejects children it remembers, or null
+     * @param climbSteps   the most steepest-ascent swaps to apply to a mutated child, 0 for none
+     * @return the evolved strategy for this player
+     */
+    public static Strategy evolve(Strategy loser, Strategy winner, double elitismRate, double mutationRate,
+                                  NoveltyArchive archive, int climbSteps) {
+        // The builder uses the scheme ids to prohibit duplicate schemes
+        StrategyBuilder builder = new StrategyBuilder(loser.get(0).getNumberOfBattlefields(), loser.size(),
+                loser.getTroopCount());
 
         // Copy elites to next generation
-        int eliteCount = (int) Math.ceil(baseline.EA.ELITISM_RATE * loser.size());
+        int eliteCount = (int) Math.ceil(elitismRate * loser.size());
         for (int i = 0; i < eliteCount; i++) {
-            strategySet.add(loser.get(i));
+            builder.add(loser.get(i));
+        }
+        if (archive != null) {
+            archive.record(loser, eliteCount);
         }
 
-        // Use reproduction and mutation to fill the rest of the new strategy
-        while (strategySet.size() < loser.size()) {
+        // Index the winner's troop allocations once for every mutation in this generation
+        OpponentIndex winnerIndex = new OpponentIndex(winner);
+
+        // Use reproduction and mutation to fill the rest of the new strategy. One child is refilled each time.
+        Scheme[] parents = new Scheme[2];
+        Scheme child = new Scheme(new int[loser.get(0).getNumberOfBattlefields()]);
+        int rejected = 0;   // Children the archive rejected in a row
+        while (!builder.isFull()) {
             // Select 2 parent schemes for crossover using tournament selection
-            Scheme[] parents = baseline.EA.selectParents(loser);
+            baseline.EA.selectParents(loser, parents, elitismRate);
 
             // Use crossover to produce child scheme
-            Scheme child = baseline.EA.crossover(parents, loser.getTroopCount());
+            child.crossover(parents, loser.getTroopCount());
 
             // Mutate with probability
-            if (baseline.EA.RANDOM.nextDouble() < baseline.EA.MUTATION_RATE) {
-                mutate(child, winner);
+            if (baseline.EA.random().nextDouble() < mutationRate) {
+                mutate(child, winnerIndex);
+                if (climbSteps > 0) {
+                    climb(new ScoreVector(child, winner), climbSteps);
+                }
             }
-            strategySet.add(child);
+            if (archive != null && rejected < NoveltyArchive.MAX_REJECTIONS && archive.rejects(child.getId())) {
+                rejected++;
+                continue;
+            }
+            rejected = 0;
+            builder.add(child);
         }
 
-        return new Strategy(loser, strategySet);
+        return builder.build();
     }
 
     /**
      * Mutate the scheme by searching for better troop allocation for a battlefield.
      *
-     * @param scheme the scheme to mutate
-     * @param winner the pool of strategies that won
+     * @param scheme      the scheme to mutate
+     * @param winnerIndex the troop histograms of the pool of strategies that won
      */
-    private static void mutate(Scheme scheme, Strategy winner) {
+    private static void mutate(Scheme scheme, OpponentIndex winnerIndex) {
         final double BOUND = .25;
         double[] lossPercent = new double[scheme.getNumberOfBattlefields()];
         int[] largestDeficit = new int[lossPercent.length];
 
         // Determine the percentage that this battlefield is loss against the enemy's scheme
         for (int battlefield = 0; battlefield < scheme.getNumberOfBattlefields(); battlefield++) {
-            for (Scheme enemyScheme : winner) {
-                if (scheme.getBattlefieldTroops(battlefield) < enemyScheme.getBattlefieldTroops(battlefield)) {
-                    lossPercent[battlefield]++;
-                    largestDeficit[battlefield] = Math.max(largestDeficit[battlefield],
-                            enemyScheme.getBattlefieldTroops(battlefield) - scheme.getBattlefieldTroops(battlefield));
-                }
-            }
-            lossPercent[battlefield] /= winner.size();
+            int troops = scheme.getBattlefieldTroops(battlefield);
+            lossPercent[battlefield] = winnerIndex.lossPercent(battlefield, troops);
+            largestDeficit[battlefield] = winnerIndex.largestDeficit(battlefield, troops);
         }
 
         // Get the largest and smallest loss percentages
@@ -84,4 +143,33 @@ public class EA {
             scheme.moveTroops(largestIndex, smallestIndex, troopsToMove);
         }
     }
+
+    /**
+     * Climb toward a better scheme by repeatedly applying the battlefield swap with the largest gain in expected
+     * value against the winner. Stops early once no swap improves the scheme.
+     *
+     * @param scores   the scores of the scheme to climb against the winner's strategy
+     * @param maxSteps the maximum number of swaps to apply
+     */
+    private static void climb(ScoreVector scores, int maxSteps) {
+        int numberOfBattlefields = scores.getScheme().getNumberOfBattlefields();
+        for (int step = 0; step < maxSteps; step++) {
+            double best = scores.getExpectedValue();
+            int bestBattlefield1 = -1, bestBattlefield2 = -1;
+            for (int battlefield1 = 0; battlefield1 < numberOfBattlefields; battlefield1++) {
+                for (int battlefield2 = battlefield1 + 1; battlefield2 < numberOfBattlefields; battlefield2++) {
+                    double expectedValue = scores.expectedValueAfterSwap(battlefield1, battlefield2);
+                    if (expectedValue > best) {
+                        best = expectedValue;
+                        bestBattlefield1 = battlefield1;
+                        bestBattlefield2 = battlefield2;
+                    }
+                }
+            }
+            if (bestBattlefield1 == -1) {
+                return;
+            }
+            scores.swapTroops(bestBattlefield1, bestBattlefield2);
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package search;
+
+import baseline.Scheme;
+import baseline.Strategy;
+
+/**
+ * Per-battlefield troop histograms of the winning player's strategy. Built once per generation so the directed
+ * mutation can look up how often and by how much a troop level loses on a battlefield without rescanning every
+ * enemy scheme.
+ */
+public class OpponentIndex {
+    private final int size;                // The number of schemes in the indexed strategy
+    private final int[][] countAbove;      // countAbove[b][t] is the number of schemes with more than t troops on b
+    private final int[] maxTroops;         // maxTroops[b] is the most troops any scheme placed on b
+
+    /**
+     * Index the troop allocations of a strategy.
+     *
+     * @param strategy the strategy to index
+     */
+    public OpponentIndex(Strategy strategy) {
+        int numberOfBattlefields = strategy.get(0).getNumberOfBattlefields();
+        size = strategy.size();
+        maxTroops = new int[numberOfBattlefields];
+        for (Scheme scheme : strategy) {
+            for (int b = 0; b < numberOfBattlefields; b++) {
+                maxTroops[b] = Math.max(maxTroops[b], scheme.getBattlefieldTroops(b));
+            }
+        }
+
+        countAbove = new int[numberOfBattlefields][];
+        for (int b = 0; b < numberOfBattlefields; b++) {
+            int[] count = new int[maxTroops[b] + 1];
+
+            // Histogram of troop levels, then a suffix sum so index t holds the schemes with more than t troops
+            for (Scheme scheme : strategy) {
+                int troops = scheme.getBattlefieldTroops(b);
+                if (troops > 0) {
+                    count[troops - 1]++;
+                }
+            }
+            for (int t = count.length - 2; t >= 0; t--) {
+                count[t] += count[t + 1];
+            }
+            countAbove[b] = count;
+        }
+    }
+
+    /**
+     * @param battlefield the index of the battlefield
+     * @param troops      the number of troops placed on the battlefield
+     * @return the fraction of indexed schemes that beat troops on battlefield
+     */
+    public double lossPercent(int battlefield, int troops) {
+        return troops < countAbove[battlefield].length ? countAbove[battlefield][troops] / (double) size : 0;
+    }
+
+    /**
+     * @param battlefield the index of the battlefield
+     * @param troops      the number of troops placed on the battlefield
+     * @return the most troops any indexed scheme outnumbers troops by on battlefield, or 0 if none do
+     */
+    public int largestDeficit(int battlefield, int troops) {
+        return Math.max(maxTroops[battlefield] - troops, 0);
+    }
+}
@@ -16,32 +16,144 @@ public class SearchDriver {
     private static final int GAMES = 50;
     private static final int ROUNDS_PER_GAME = 10_000;
     private static final int STRATEGY_SIZE = 10;
+    private static final int CLIMB_STEPS = 0;   // Swaps to climb a mutated child by unless given, 0 for none
 
     public static void main(String[] args) throws Exception {
         final boolean write = false;
+        final boolean trace = false;    // Record every round under traces/ to diagnose runs that don't converge
         Gson gson = new Gson();
 
+        // Optionally warm start each player from a saved strategy or a corpus directory, - for random schemes
+        WarmStart player1Start = args.length > 0 && !args[0].equals("-")
+                ? new WarmStart(args[0], true, baseline.EA.MUTATION_RATE) : null;
+        WarmStart player2Start = args.length > 1 && !args[1].equals("-")
+                ? new WarmStart(args[1], true, baseline.EA.MUTATION_RATE) : null;
+
+        // Optionally climb each mutated child by up to this many swaps against the winner
+        int climbSteps = args.length > 2 ? Integer.parseInt(args[2]) : CLIMB_STEPS;
+
+        RunConfig config = new RunConfig(NUMBER_OF_BATTLEFIELDS, GAMES, ROUNDS_PER_GAME, STRATEGY_SIZE, 100,
+                baseline.EA.ELITISM_RATE, baseline.EA.MUTATION_RATE);
+
         for (int s = 0; s < (write ? 100 : 1);) {
-            Strategy player1 = new Strategy(NUMBER_OF_BATTLEFIELDS, STRATEGY_SIZE, 100);
-            Strategy player2 = new Strategy(NUMBER_OF_BATTLEFIELDS, STRATEGY_SIZE, 100);
-
-            double avgUtilPerGame1 = 0;
-            double avgUtilPerGame2 = 0;
-            double p1WinPercent = 0;
-            boolean restart = false;
-
-            // Terminates once at least GAMES games are played, p1 win percent is 75%-90% and all schemes have a positive prob.
-            for (int g = 1; g <= GAMES || p1WinPercent > .9 || p1WinPercent < .75 || player1.hasZeroProbabilities(); g++) {
-                if (g > 1_500) {
-                    restart = true;
+            // Resume the run that was interrupted, if any
+            try (Checkpointer checkpointer = new Checkpointer("checkpoints/search.bin", "search " + config,
+                    Checkpointer.INTERVAL);
+                 TraceRecorder traceRecorder = trace
+                         ? new TraceRecorder("traces/search-" + System.currentTimeMillis() + ".bin", NUMBER_OF_BATTLEFIELDS, ROUNDS_PER_GAME / 10) : null) {
+                RunOptions options = new RunOptions();
+                options.setVerbose(!write);
+                options.setCheckpointer(checkpointer);
+                options.setPlayer1Start(player1Start);
+                options.setPlayer2Start(player2Start);
+                options.setTraceRecorder(traceRecorder);
+                options.setClimbSteps(climbSteps);
+                RunResult result = run(config, System.nanoTime(), options);
+
+                if (!result.isConverged()) {
                     System.out.print(" restarted...");
-                    break;
+                } else if (write) {
+                    // Save strategy to JSON file
+                    System.out.print("\r" + s);
+                    try (FileWriter file = new FileWriter("strategies/search/" + s + ".json")) {
+                        file.write(gson.toJson(result.getPlayer1()));
+                    }
+                } else {
+                    System.out.println("\nPlayer1 avg util: " + result.getAvgUtilPerGame1());
+                    System.out.println("Player2 avg util: " + -result.getAvgUtilPerGame1());
                 }
+                checkpointer.finish();
+            }
+        }
 
-                int player1Wins = 0, player2Wins = 0;
-                double p1TotalUtil = 0, p2TotalUtil = 0;
+        // The cache is shared by every run, so its counts cover them all
+        if (PayoffCache.ENABLED) {
+            System.out.println(System.lineSeparator() + "Payoff cache: " + PayoffCache.SHARED);
+        }
+    }
 
-                for (int r = 0; r < ROUNDS_PER_GAME; r++) {
+    /**
+     * Play games until player 1's strategy meets the termination checks, giving up after 1,500 games.
+     *
+     * @param config  the parameters of the run
+     * @param seed    the seed for the random number generator of the current thread
+     * @param verbose whether to print the result of every game
+     * @return the final strategies and how long the run took. Not converged if the run gave up.
+     */
+    public static RunResult run(RunConfig config, long seed, boolean verbose) throws Exception {
+        RunOptions options = new RunOptions();
+        options.setVerbose(verbose);
+        return run(config, seed, options);
+    }
+
+    /**
+     * Play games until player 1's strategy meets the termination checks, giving up after 1,500 games.
+     *
+     * @param config  the parameters of the run
+     * @param seed    the seed for the random number generator of the current thread
+     * @param options whether to print every game, checkpoint, warm start and publish snapshots
+     * @return the final strategies and how long the run took. Not converged if the run gave up.
+     */
+    public static RunResult run(RunConfig config, long seed, RunOptions options) throws Exception {
+        Checkpointer checkpointer = options.getCheckpointer();
+        SnapshotFeed snapshotFeed = options.getSnapshotFeed();
+        TraceRecorder trace = options.getTraceRecorder();
+        Solver solver = options.getSolver();
+        DominancePruner pruner = options.getPruner();
+        ParallelGame parallelGame = options.getParallelGame();
+        NoveltyArchive archive = options.getNoveltyArchive();
+
+        long start = System.currentTimeMillis();
+        baseline.EA.seed(seed);
+        Strategy player1 = options.getPlayer1Start() != null
+                ? options.getPlayer1Start().strategy(config.getNumberOfBattlefields(), config.getStrategySize(), config.getTroopCount())
+                : new Strategy(config.getNumberOfBattlefields(), config.getStrategySize(), config.getTroopCount());
+        Strategy player2 = options.getPlayer2Start() != null
+                ? options.getPlayer2Start().strategy(config.getNumberOfBattlefields(), config.getStrategySize(), config.getTroopCount())
+                : new Strategy(config.getNumberOfBattlefields(), config.getStrategySize(), config.getTroopCount());
+
+        double avgUtilPerGame1 = 0;
+        double p1WinPercent = 0;
+        boolean restart = false;
+        int g = 1;
+
+        // Continue from the last checkpoint of the run, if there is one
+        Checkpoint checkpoint = checkpointer != null ? checkpointer.load() : null;
+        if (checkpoint != null) {
+            g = checkpoint.getGame() + 1;
+            player1 = checkpoint.getPlayer1();
+            player2 = checkpoint.getPlayer2();
+            avgUtilPerGame1 = checkpoint.getAvgUtilPerGame1();
+            p1WinPercent = checkpoint.getP1WinPercent();
+        }
+
+        // Terminates once at least GAMES games are played, p1 win percent is 75%-90% and all schemes have a positive prob.
+        for (; g <= config.getGames() || p1WinPercent > .9 || p1WinPercent < .75 || player1.hasZeroProbabilities(); g++) {
+            if (g > 1_500) {
+                restart = true;
+                break;
+            }
+
+            int player1Wins = 0, player2Wins = 0;
+            double p1TotalUtil = 0, p2TotalUtil = 0;
+
+            // Replace the dominated schemes of both players before they learn
+            if (pruner != null) {
+                pruner.prune(player1, player2);
+            }
+
+            if (trace != null) {
+                trace.recordStrategies(g, player1, player2);
+            }
+
+            if (parallelGame != null) {
+                parallelGame.play(player1, player2, config.getRoundsPerGame(), solver);
+                player1Wins = parallelGame.getPlayer1Wins();
+                player2Wins = parallelGame.getPlayer2Wins();
+                p1TotalUtil = parallelGame.getPlayer1Utility();
+                p2TotalUtil = -p1TotalUtil;
+            } else {
+                for (int r = 0; r < config.getRoundsPerGame(); r++) {
                     // Get a randomly chosen scheme for each player
                     Scheme player1Scheme = player1.getRandom();
                     Scheme player2Scheme = player2.getRandom();
@@ -58,53 +170,63 @@ public class SearchDriver {
                         player2Wins++;
                     }
 
-                    player1.update(player1Scheme, player2Scheme, player1Util);
-                    player2.update(player2Scheme, player1Scheme, player2Util);
+                    player1.update(player1Scheme, player2Scheme, player1Util, solver);
+                    player2.update(player2Scheme, player1Scheme, player2Util, solver);
+
+                    if (trace != null) {
+                        trace.recordRound(g, r, player1Scheme, player2Scheme, player1Util);
+                        trace.recordProbabilities(g, r, player1, player2);
+                    }
+
+                    if (snapshotFeed != null && snapshotFeed.isDue(r + 1)) {
+                        snapshotFeed.publish(g, r + 1, player1, player2);
+                    }
                 }
+            }
 
-                // Calculate expected value for all the schemes for both players
-                baseline.EA.evaluateFitness(player1, player2);
+            // Calculate expected value for all the schemes for both players
+            baseline.EA.evaluateFitness(player1, player2);
 
-                avgUtilPerGame1 += (p1TotalUtil / ROUNDS_PER_GAME);
-                avgUtilPerGame2 += (p2TotalUtil / ROUNDS_PER_GAME);
+            // Publish the average strategies of the game before the loser is replaced
+            if (snapshotFeed != null) {
+                snapshotFeed.publish(g, config.getRoundsPerGame(), player1, player2);
+            }
 
-                Strategy winner = p1TotalUtil > p2TotalUtil ? player1 : player2;
-                Strategy loser = p1TotalUtil > p2TotalUtil ? player2 : player1;
+            avgUtilPerGame1 += (p1TotalUtil / config.getRoundsPerGame());
 
-                p1WinPercent = player1Wins / (double) ROUNDS_PER_GAME;
+            Strategy winner = p1TotalUtil > p2TotalUtil ? player1 : player2;
+            Strategy loser = p1TotalUtil > p2TotalUtil ? player2 : player1;
 
-                if (!write) {
-                    System.out.println("Game " + g);
-                    System.out.println("Player1 wins: " + player1Wins + ", Player2 wins: " + player2Wins);
-                    System.out.println("Player1 utility per game: " + (p1TotalUtil / ROUNDS_PER_GAME) + ", Player2 utility per game: " + (p2TotalUtil / ROUNDS_PER_GAME));
+            p1WinPercent = player1Wins / (double) config.getRoundsPerGame();
 
-                    System.out.println("Player " + (p1TotalUtil > p2TotalUtil ? 1 : 2) + " Strategy:");
-                    System.out.println(winner);
-                    System.out.println("Player " + (p1TotalUtil > p2TotalUtil ? 2 : 1) + " Strategy:");
-                    System.out.println(loser);
-                }
+            if (options.isVerbose()) {
+                System.out.println("Game " + g);
+                System.out.println("Player1 wins: " + player1Wins + ", Player2 wins: " + player2Wins);
+                System.out.println("Player1 utility per game: " + (p1TotalUtil / config.getRoundsPerGame()) + ", Player2 utility per game: " + (p2TotalUtil / config.getRoundsPerGame()));
 
-                // Generate new schemes for loser
-                if (p1TotalUtil > p2TotalUtil) {
-                    player2 = new Strategy(NUMBER_OF_BATTLEFIELDS, STRATEGY_SIZE, 100);
-                } else {
-                    player1 = EA.evolve(loser, winner);
-                }
+                System.out.println("Player " + (p1TotalUtil > p2TotalUtil ? 1 : 2) + " Strategy:");
+                System.out.println(winner);
+                System.out.println("Player " + (p1TotalUtil > p2TotalUtil ? 2 : 1) + " Strategy:");
+                System.out.println(loser);
+            }
 
-                // Reset the winner's strategy
-                winner.resetStrategy();
+            // Generate new schemes for loser
+            if (p1TotalUtil > p2TotalUtil) {
+                player2 = new Strategy(config.getNumberOfBattlefields(), config.getStrategySize(), config.getTroopCount());
+            } else {
+                player1 = EA.evolve(loser, winner, config.getElitismRate(), config.getMutationRate(),
+                        archive, options.getClimbSteps());
             }
 
-            if (write && !restart) {
-                // Save strategy to JSON file
-                System.out.print("\r" + s);
-                try (FileWriter file = new FileWriter("strategies/search/" + s + ".json")) {
-                    file.write(gson.toJson(player1));
-                }
-            } else if (!write) {
-                System.out.println("\nPlayer1 avg util: " + avgUtilPerGame1 / GAMES);
-                System.out.println("Player2 avg util: " + avgUtilPerGame2 / GAMES);
+            // Reset the winner's strategy
+            winner.resetStrategy();
+
+            if (checkpointer != null && checkpointer.isDue(g)) {
+                checkpointer.save(g, avgUtilPerGame1, p1WinPercent, p1TotalUtil, p2TotalUtil, player1, player2);
             }
         }
+
+        return new RunResult(player1, player2, g - 1, System.currentTimeMillis() - start,
+                avgUtilPerGame1 / config.getGames(), !restart);
     }
 }
@@ -0,0 +1,236 @@
+package sweep;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands the jobs of a sweep spec to Worker JVMs over localhost sockets and records their results in the result store,
+ * so every run gets its own heap. Jobs already in the store are skipped. A job whose worker disconnects is requeued,
+ * and the coordinator starts a replacement for every worker it started that dies. A job that fails MAX_ATTEMPTS times
+ * is given up on.
+ * <p>
+ * With 0 workers the coordinator starts none and waits for workers started by hand, such as on other NUMA nodes with
+ * numactl. The spec's workerJvmArgs are passed to the workers it starts.
+ * <p>
+ * Usage: java sweep.Coordinator spec.properties workers [port]
+ */
+public class Coordinator {
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final SweepSpec spec;
+    private final String specPath;
+    private final int port;
+    private final List<SweepJob> jobs;
+    private final ResultStore store;
+    private final int[] attempts;                                       // attempts[i] is the times job i was started
+    private final BlockingDeque<Integer> queue = new LinkedBlockingDeque<>();  // The indices of the jobs to hand out
+    private final CountDownLatch remaining;                             // Counts down as jobs finish or are given up
+
+    /**
+     * Queue the jobs of a spec that aren't in its result store.
+     *
+     * @param specPath the path of the spec, passed to the workers
+     * @param spec     the spec
+     * @param store    the result store of the spec
+     * @param port     the port to accept workers on
+     */
+    private Coordinator(String specPath, SweepSpec spec, ResultStore store, int port) {
+        this.specPath = specPath;
+        this.spec = spec;
+        this.store = store;
+        this.port = port;
+        jobs = spec.getJobs();
+        attempts = new int[jobs.size()];
+        for (int i = 0; i < jobs.size(); i++) {
+            if (!store.isCompleted(jobs.get(i))) {
+                queue.add(i);
+            }
+        }
+        remaining = new CountDownLatch(queue.size());
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java sweep.Coordinator spec.properties workers [port]");
+            System.exit(2);
+        }
+        int workers = Integer.parseInt(args[1]);
+
+        SweepSpec spec;
+        try (Reader reader = new FileReader(args[0])) {
+            spec = new SweepSpec(reader);
+        }
+
+        try (ResultStore store = new ResultStore(spec.getOutput());
+             ServerSocket server = new ServerSocket(args.length > 2 ? Integer.parseInt(args[2]) : 0, 50,
+                     InetAddress.getLoopbackAddress())) {
+            if (store.getSkipped() > 0) {
+                System.err.println(store.getSkipped() + " unreadable lines in " + spec.getOutput() + " were skipped");
+            }
+            Coordinator coordinator = new Coordinator(args[0], spec, store, server.getLocalPort());
+            System.out.println((coordinator.jobs.size() - coordinator.queue.size()) + " jobs done, "
+                    + coordinator.queue.size() + " to run, accepting workers on port " + server.getLocalPort());
+            coordinator.run(server, workers);
+        }
+    }
+
+    /**
+     * Accept workers until every job has finished or been given up on.
+     *
+     * @param server  the socket workers connect to
+     * @param workers the number of worker JVMs to start
+     */
+    private void run(final ServerSocket server, int workers) throws Exception {
+        Thread acceptor = new Thread(() -> {
+            try {
+                while (true) {
+                    final Socket socket = server.accept();
+                    Thread connection = new Thread(() -> serve(socket), "worker-connection");
+                    connection.setDaemon(true);
+                    connection.start();
+                }
+            } catch (IOException e) {
+                // The server closed
+            }
+        }, "worker-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+
+        List<Process> processes = new ArrayList<>();
+        for (int w = 0; w < Math.min(workers, queue.size()); w++) {
+            processes.add(startWorker());
+        }
+
+        // Replace workers that die while jobs remain
+        while (!remaining.await(1, TimeUnit.SECONDS)) {
+            for (int w = 0; w < processes.size(); w++) {
+                Process process = processes.get(w);
+                if (!process.isAlive() && process.exitValue() != 0) {
+                    System.out.println("Worker exited with " + process.exitValue() + ", starting another");
+                    processes.set(w, startWorker());
+                }
+            }
+        }
+
+        // Workers ask for another job and are told to stop
+        for (Process process : processes) {
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroy();
+            }
+        }
+    }
+
+    /**
+     * Hand jobs to one worker until none are left or it disconnects.
+     *
+     * @param socket the connection to the worker
+     */
+    private void serve(Socket socket) {
+        Integer job = null;
+        try (Socket s = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
+            while ("READY".equals(in.readLine())) {
+                // Wait for a job, since a job in progress elsewhere may be requeued
+                while (job == null && remaining.getCount() > 0) {
+                    job = queue.poll(1, TimeUnit.SECONDS);
+                }
+                if (job == null) {
+                    send(out, "STOP");
+                    return;
+                }
+                synchronized (attempts) {
+                    attempts[job]++;
+                }
+                send(out, "JOB " + job);
+
+                String reply = in.readLine();
+                if (reply == null) {
+                    break;
+                }
+                SweepJob sweepJob = jobs.get(job);
+                if (reply.startsWith("RESULT ")) {
+                    store.append(sweepJob.getKey(), reply.substring("RESULT ".length()));
+                    System.out.println((jobs.size() - remaining.getCount() + 1) + "/" + jobs.size() + " " + sweepJob);
+                    remaining.countDown();
+                } else {
+                    System.out.println(sweepJob + " failed: " + reply);
+                    retry(job);
+                }
+                job = null;
+                send(out, "OK");
+            }
+        } catch (SocketException e) {
+            // The worker disconnected
+        } catch (IOException | InterruptedException e) {
+            System.out.println("Worker connection failed: " + e);
+        }
+        if (job != null) {
+            retry(job);
+        }
+    }
+
+    /**
+     * Requeue a job that didn't finish, or give up on it after MAX_ATTEMPTS.
+     *
+     * @param job the index of the job
+     */
+    private void retry(int job) {
+        synchronized (attempts) {
+            if (attempts[job] < MAX_ATTEMPTS) {
+                queue.addFirst(job);
+                return;
+            }
+        }
+        System.out.println("Giving up on " + jobs.get(job) + " after " + MAX_ATTEMPTS + " attempts");
+        remaining.countDown();
+    }
+
+    /**
+     * @return a new worker JVM with the classpath of this one
+     */
+    private Process startWorker() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        for (String option : spec.getWorkerJvmArgs().split(" ")) {
+            if (!option.isEmpty()) {
+                command.add(option);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Worker.class.getName());
+        command.add(specPath);
+        command.add(InetAddress.getLoopbackAddress().getHostAddress());
+        command.add(Integer.toString(port));
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    /**
+     * @param out     the connection to a worker
+     * @param message the message to send
+     */
+    private static void send(Writer out, String message) throws IOException {
+        out.write(message);
+        out.write('\n');
+        out.flush();
+    }
+}
@@ -0,0 +1,151 @@
+package sweep;
+
+import baseline.RunResult;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An append-only file of finished jobs, one JSON object per line. A line is only complete once its newline is written,
+ * so a sweep that is interrupted mid-write leaves at most one partial line, which is dropped when the store reopens.
+ * A complete line that isn't a record is skipped and counted, and the records after it are kept.
+ */
+public class ResultStore implements AutoCloseable {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final RandomAccessFile file;
+    private final Set<String> completed = new HashSet<>();  // The keys of the jobs in the file
+    private int skipped;                                    // Complete lines that couldn't be read as records
+
+    /**
+     * Open a store, creating it if needed, and read the keys of the jobs it holds.
+     *
+     * @param path the path of the file
+     */
+    public ResultStore(String path) throws IOException {
+        File parent = new File(path).getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            throw new IOException("Can't create " + parent);
+        }
+        file = new RandomAccessFile(path, "rw");
+
+        // Read every whole line in blocks, counting bytes so the file can be cut after the last one
+        long end = 0;
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        byte[] block = new byte[1 << 16];
+        try (InputStream in = new FileInputStream(path)) {
+            int read;
+            while ((read = in.read(block)) != -1) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (block[i] == '\n') {
+                        line.write(block, start, i - start);
+                        end += line.size() + 1;
+                        read(line.toString("UTF-8"));
+                        line.reset();
+                        start = i + 1;
+                    }
+                }
+                line.write(block, start, read - start);
+            }
+        }
+        file.setLength(end);
+        file.seek(end);
+    }
+
+    /**
+     * @param job a job of the sweep
+     * @return whether the store already holds its result
+     */
+    public synchronized boolean isCompleted(SweepJob job) {
+        return completed.contains(job.getKey());
+    }
+
+    /**
+     * @return the number of jobs in the store
+     */
+    public synchronized int size() {
+        return completed.size();
+    }
+
+    /**
+     * Append the result of a job and flush it to the file.
+     *
+     * @param job    the job that ran
+     * @param result its outcome
+     */
+    public void append(SweepJob job, RunResult result) throws IOException {
+        append(job.getKey(), toJson(job, result));
+    }
+
+    /**
+     * Append a record, such as one a worker sent, and flush it to the file.
+     *
+     * @param key    the key of the job that ran
+     * @param record the record of the job on one line, from toJson
+     */
+    public synchronized void append(String key, String record) throws IOException {
+        file.write((record + "\n").getBytes(StandardCharsets.UTF_8));
+        file.getFD().sync();
+        completed.add(key);
+    }
+
+    /**
+     * @param job    the job that ran
+     * @param result its outcome
+     * @return the record of the job on one line
+     */
+    public static String toJson(SweepJob job, RunResult result) {
+        JsonObject record = new JsonObject();
+        record.addProperty("key", job.getKey());
+        record.addProperty("variant", job.getVariant());
+        record.add("config", GSON.toJsonTree(job.getConfig()));
+        record.addProperty("seed", job.getSeed());
+        record.addProperty("solver", job.getSolver().toString());
+        record.addProperty("games", result.getGames());
+        record.addProperty("millis", result.getMillis());
+        record.addProperty("avgUtilPerGame1", result.getAvgUtilPerGame1());
+        record.addProperty("converged", result.isConverged());
+        record.add("player1", GSON.toJsonTree(result.getPlayer1()));
+        record.add("player2", GSON.toJsonTree(result.getPlayer2()));
+        return GSON.toJson(record);
+    }
+
+    /**
+     * Add the key of a complete line's record, or count the line as skipped if it isn't a record.
+     *
+     * @param line the line, without its newline
+     */
+    private void read(String line) {
+        try {
+            JsonObject record = JsonParser.parseString(line).getAsJsonObject();
+            completed.add(record.get("key").getAsString());
+        } catch (JsonSyntaxException | IllegalStateException | NullPointerException e) {
+            skipped++;
+        }
+    }
+
+    /**
+     * @return the number of complete lines that couldn't be read as records and were skipped
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,77 @@
+package sweep;
+
+import baseline.Checkpointer;
+import baseline.RunResult;
+
+import java.io.FileReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Run every job of a sweep spec on a work-stealing pool and record the results. Jobs already in the result store are
+ * skipped, so an interrupted sweep picks up where it stopped when run again with the same spec. Jobs that were
+ * running continue from their checkpoints, kept beside the result store until the job is recorded.
+ * <p>
+ * Usage: java sweep.Sweep spec.properties
+ */
+public class Sweep {
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: java sweep.Sweep spec.properties");
+            System.exit(2);
+        }
+
+        final SweepSpec spec;
+        try (Reader reader = new FileReader(args[0])) {
+            spec = new SweepSpec(reader);
+        }
+
+        try (final ResultStore store = new ResultStore(spec.getOutput())) {
+            List<SweepJob> jobs = new ArrayList<>();
+            for (SweepJob job : spec.getJobs()) {
+                if (!store.isCompleted(job)) {
+                    jobs.add(job);
+                }
+            }
+            if (store.getSkipped() > 0) {
+                System.err.println(store.getSkipped() + " unreadable lines in " + spec.getOutput() + " were skipped");
+            }
+            System.out.println((spec.getJobs().size() - jobs.size()) + " jobs done, " + jobs.size() + " to run");
+
+            final int total = jobs.size();
+            final AtomicInteger finished = new AtomicInteger();
+            ExecutorService pool = Executors.newWorkStealingPool();
+            List<Future<Void>> futures = new ArrayList<>();
+            for (final SweepJob job : jobs) {
+                futures.add(pool.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        try (Checkpointer checkpointer = new Checkpointer(job.getCheckpointPath(spec.getOutput()),
+                                job.getKey(), Checkpointer.INTERVAL)) {
+                            RunResult result = job.run(checkpointer);
+                            store.append(job, result);
+                            checkpointer.finish();
+                            System.out.println(finished.incrementAndGet() + "/" + total + " " + job + " games="
+                                    + result.getGames() + " millis=" + result.getMillis());
+                        }
+                        return null;
+                    }
+                }));
+            }
+
+            try {
+                for (Future<Void> future : futures) {
+                    future.get();
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+}
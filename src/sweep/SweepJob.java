@@ -0,0 +1,164 @@
+package sweep;
+
+import baseline.BaselineDriver;
+import baseline.Checkpointer;
+import baseline.RunConfig;
+import baseline.RunOptions;
+import baseline.RunResult;
+import baseline.Solver;
+import baseline.WarmStart;
+import coevolved.CoevolvedDriver;
+import dynamicstrategy.DynamicStrategyDriver;
+import search.SearchDriver;
+
+/**
+ * One run of a driver with fixed parameters and seed.
+ */
+public class SweepJob {
+    public static final String[] VARIANTS = {"baseline", "search", "dynamicstrategy", "coevolved"};
+
+    private final String variant;   // The package of the driver to run
+    private final RunConfig config;
+    private final long seed;
+    private final WarmStart player1Start;   // Draws player 1's first strategy, or null for random schemes
+    private final WarmStart player2Start;   // Draws player 2's first strategy, or null for random schemes
+    private final Solver solver;            // Sets both players' probabilities each round
+
+    /**
+     * Construct a job.
+     *
+     * @param variant the package of the driver to run, one of VARIANTS
+     * @param config  the parameters of the run
+     * @param seed    the seed for the random number generator of the thread running the job
+     * @throws IllegalArgumentException if there is no such variant
+     */
+    public SweepJob(String variant, RunConfig config, long seed) {
+        this(variant, config, seed, null, null);
+    }
+
+    /**
+     * Construct a job that warm starts its players.
+     *
+     * @param variant      the package of the driver to run, one of VARIANTS
+     * @param config       the parameters of the run
+     * @param seed         the seed for the random number generator of the thread running the job
+     * @param player1Start draws player 1's first strategy, or null for random schemes
+     * @param player2Start draws player 2's first strategy, or null for random schemes
+     * @throws IllegalArgumentException if there is no such variant
+     */
+    public SweepJob(String variant, RunConfig config, long seed, WarmStart player1Start, WarmStart player2Start) {
+        this(variant, config, seed, player1Start, player2Start, Solver.REGRET_MATCHING);
+    }
+
+    /**
+     * Construct a job that warm starts its players and learns with a solver.
+     *
+     * @param variant      the package of the driver to run, one of VARIANTS
+     * @param config       the parameters of the run
+     * @param seed         the seed for the random number generator of the thread running the job
+     * @param player1Start draws player 1's first strategy, or null for random schemes
+     * @param player2Start draws player 2's first strategy, or null for random schemes
+     * @param solver       sets both players' probabilities each round
+     * @throws IllegalArgumentException if there is no such variant
+     */
+    public SweepJob(String variant, RunConfig config, long seed, WarmStart player1Start, WarmStart player2Start,
+                    Solver solver) {
+        if (!isVariant(variant)) {
+            throw new IllegalArgumentException("Unknown variant " + variant);
+        }
+        this.variant = variant;
+        this.config = config;
+        this.seed = seed;
+        this.player1Start = player1Start;
+        this.player2Start = player2Start;
+        this.solver = solver;
+    }
+
+    /**
+     * @param variant the package of a driver
+     * @return whether variant is one of VARIANTS
+     */
+    public static boolean isVariant(String variant) {
+        for (String v : VARIANTS) {
+            if (v.equals(variant)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Run the driver of this job quietly.
+     *
+     * @param checkpointer continues the run from its checkpoint and checkpoints it periodically, or null
+     * @return the outcome of the run
+     */
+    public RunResult run(Checkpointer checkpointer) throws Exception {
+        RunOptions options = new RunOptions();
+        options.setCheckpointer(checkpointer);
+        options.setPlayer1Start(player1Start);
+        options.setPlayer2Start(player2Start);
+        options.setSolver(solver);
+        switch (variant) {
+            case "baseline":
+                return BaselineDriver.run(config, seed, options);
+            case "search":
+                return SearchDriver.run(config, seed, options);
+            case "dynamicstrategy":
+                return DynamicStrategyDriver.run(config, seed, options);
+            default:
+                return CoevolvedDriver.run(config, seed, options);
+        }
+    }
+
+    /**
+     * @return the key that identifies this job in a result store. Jobs with the same key produce the same record.
+     */
+    public String getKey() {
+        return variant + " " + config + " SEED=" + seed
+                + (player1Start != null ? " PLAYER1_START=" + player1Start : "")
+                + (player2Start != null ? " PLAYER2_START=" + player2Start : "")
+                + (solver != Solver.REGRET_MATCHING ? " SOLVER=" + solver : "");
+    }
+
+    /**
+     * @param output the path of the result store
+     * @return the path of the job's checkpoint, beside the result store
+     */
+    public String getCheckpointPath(String output) {
+        return output + ".checkpoints/" + Integer.toHexString(getKey().hashCode()) + ".bin";
+    }
+
+    /**
+     * @return the package of the driver to run
+     */
+    public String getVariant() {
+        return variant;
+    }
+
+    /**
+     * @return the parameters of the run
+     */
+    public RunConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * @return the seed for the random number generator of the thread running the job
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return sets both players' probabilities each round
+     */
+    public Solver getSolver() {
+        return solver;
+    }
+
+    @Override
+    public String toString() {
+        return getKey();
+    }
+}
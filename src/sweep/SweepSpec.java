@@ -0,0 +1,183 @@
+package sweep;
+
+import baseline.RunConfig;
+import baseline.Solver;
+import baseline.WarmStart;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+/**
+ * The jobs of a sweep, read from a properties file. Every parameter in RunConfig.PARAMETERS can be given as a
+ * comma-separated list of values, which are swept as a grid, or as a range lo..hi, which is sampled uniformly once per
+ * sample for a random search. Parameters that are left out keep their values from RunConfig.DEFAULT.
+ * <pre>
+ * variants=baseline,search         # Drivers to run, from SweepJob.VARIANTS
+ * solvers=regret,hedge             # Learners to run each driver with, from Solver.SOLVERS
+ * seeds=5                          # Runs per configuration
+ * seed=1                           # Base seed of the runs and of the random search
+ * samples=20                       # Draws of the ranges per grid point, 1 if there are no ranges
+ * output=sweeps/results.jsonl      # The result store
+ * player1Start=strategies/baseline # Optional warm start of player 1 from a strategy or corpus, likewise player2Start
+ * dedup=true                       # Draw distinct warm start schemes with equal weight
+ * perturbation=0.05                # The rate to mutate a warm start scheme
+ * workerJvmArgs=-Xmx2g             # JVM options of the workers a Coordinator starts
+ * STRATEGY_SIZE=5,10,20
+ * MUTATION_RATE=0.05..0.4
+ * </pre>
+ */
+public class SweepSpec {
+    private final List<String> variants = new ArrayList<>();
+    private final List<Solver> solvers = new ArrayList<>();
+    private final List<RunConfig> configs = new ArrayList<>();
+    private final int seeds;
+    private final long seed;
+    private final String output;
+    private final WarmStart player1Start;
+    private final WarmStart player2Start;
+    private final String workerJvmArgs;
+
+    /**
+     * Parse a spec and expand it into configurations.
+     *
+     * @param reader the properties of the spec
+     * @throws IllegalArgumentException if a variant, parameter, or value is malformed
+     */
+    public SweepSpec(Reader reader) throws IOException {
+        Properties properties = new Properties();
+        properties.load(reader);
+
+        for (String variant : properties.getProperty("variants", "baseline").split(",")) {
+            variant = variant.trim();
+            if (!SweepJob.isVariant(variant)) {
+                throw new IllegalArgumentException("Unknown variant " + variant);
+            }
+            variants.add(variant);
+        }
+        for (String solver : properties.getProperty("solvers", Solver.REGRET_MATCHING.toString()).split(",")) {
+            solvers.add(Solver.forName(solver.trim()));
+        }
+        seeds = Integer.parseInt(properties.getProperty("seeds", "1").trim());
+        seed = Long.parseLong(properties.getProperty("seed", "0").trim());
+        output = properties.getProperty("output", "sweeps/results.jsonl").trim();
+        workerJvmArgs = properties.getProperty("workerJvmArgs", "").trim();
+        boolean dedup = Boolean.parseBoolean(properties.getProperty("dedup", "false").trim());
+        double perturbation = Double.parseDouble(properties.getProperty("perturbation", "0").trim());
+        String player1Source = properties.getProperty("player1Start");
+        String player2Source = properties.getProperty("player2Start");
+        player1Start = player1Source != null ? new WarmStart(player1Source.trim(), dedup, perturbation) : null;
+        player2Start = player2Source != null ? new WarmStart(player2Source.trim(), dedup, perturbation) : null;
+
+        for (String name : properties.stringPropertyNames()) {
+            if (!isSpecKey(name) && !isParameter(name)) {
+                throw new IllegalArgumentException("Unknown parameter " + name);
+            }
+        }
+
+        // Expand the grid, then draw the ranges at every grid point
+        List<RunConfig> grid = new ArrayList<>();
+        grid.add(RunConfig.DEFAULT);
+        List<String> ranges = new ArrayList<>();
+        for (String parameter : RunConfig.PARAMETERS) {
+            String value = properties.getProperty(parameter);
+            if (value == null) {
+                continue;
+            }
+            if (value.contains("..")) {
+                ranges.add(parameter);
+                continue;
+            }
+            List<RunConfig> expanded = new ArrayList<>();
+            for (RunConfig config : grid) {
+                for (String v : value.split(",")) {
+                    expanded.add(config.with(parameter, Double.parseDouble(v.trim())));
+                }
+            }
+            grid = expanded;
+        }
+
+        int samples = ranges.isEmpty() ? 1 : Integer.parseInt(properties.getProperty("samples", "1").trim());
+        Random random = new Random(seed);
+        for (RunConfig config : grid) {
+            for (int s = 0; s < samples; s++) {
+                RunConfig sample = config;
+                for (String parameter : ranges) {
+                    String[] bounds = properties.getProperty(parameter).split("\\.\\.");
+                    double lo = Double.parseDouble(bounds[0].trim());
+                    double hi = Double.parseDouble(bounds[1].trim());
+                    sample = sample.with(parameter, isInteger(parameter)
+                            ? Math.floor(lo + random.nextDouble() * (hi - lo + 1))
+                            : lo + random.nextDouble() * (hi - lo));
+                }
+                configs.add(sample);
+            }
+        }
+    }
+
+    /**
+     * @return every job of the sweep in a fixed order. Runs with the same seed index share a seed across
+     * configurations so they can be compared in pairs.
+     */
+    public List<SweepJob> getJobs() {
+        List<SweepJob> jobs = new ArrayList<>();
+        for (String variant : variants) {
+            for (Solver solver : solvers) {
+                for (RunConfig config : configs) {
+                    for (int s = 0; s < seeds; s++) {
+                        jobs.add(new SweepJob(variant, config, seed + s, player1Start, player2Start, solver));
+                    }
+                }
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * @return the path of the result store
+     */
+    public String getOutput() {
+        return output;
+    }
+
+    /**
+     * @return the JVM options of the workers a Coordinator starts, separated by spaces
+     */
+    public String getWorkerJvmArgs() {
+        return workerJvmArgs;
+    }
+
+    /**
+     * @param name the name of a property
+     * @return whether it configures the sweep rather than a run
+     */
+    private static boolean isSpecKey(String name) {
+        return name.equals("variants") || name.equals("solvers") || name.equals("seeds") || name.equals("seed")
+                || name.equals("samples") || name.equals("output") || name.equals("player1Start") || name.equals("player2Start")
+                || name.equals("dedup") || name.equals("perturbation") || name.equals("workerJvmArgs");
+    }
+
+    /**
+     * @param name the name of a property
+     * @return whether it is one of RunConfig.PARAMETERS
+     */
+    private static boolean isParameter(String name) {
+        for (String parameter : RunConfig.PARAMETERS) {
+            if (parameter.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param parameter one of RunConfig.PARAMETERS
+     * @return whether the parameter only takes whole numbers
+     */
+    private static boolean isInteger(String parameter) {
+        return !parameter.endsWith("_RATE");
+    }
+}
@@ -0,0 +1,84 @@
+package sweep;
+
+import baseline.Checkpointer;
+import baseline.RunResult;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Runs jobs handed out by a Coordinator, one at a time, in its own JVM. The worker reads the same spec as the
+ * coordinator so a job is sent as its index. Jobs are checkpointed beside the result store, so a job whose worker
+ * crashed continues where it stopped on whichever worker it is requeued to.
+ * <p>
+ * Protocol, one line per message: the worker sends READY, the coordinator answers JOB index or STOP. The worker runs
+ * the job and sends RESULT followed by the record, or FAILED followed by the error, and the coordinator answers OK.
+ * <p>
+ * Usage: java sweep.Worker spec.properties host port
+ */
+public class Worker {
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            System.err.println("Usage: java sweep.Worker spec.properties host port");
+            System.exit(2);
+        }
+
+        SweepSpec spec;
+        try (Reader reader = new FileReader(args[0])) {
+            spec = new SweepSpec(reader);
+        }
+        List<SweepJob> jobs = spec.getJobs();
+
+        try (Socket socket = new Socket(args[1], Integer.parseInt(args[2]));
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            while (true) {
+                send(out, "READY");
+                String message = in.readLine();
+                if (message == null || message.equals("STOP")) {
+                    return;
+                }
+
+                SweepJob job = jobs.get(Integer.parseInt(message.substring("JOB ".length())));
+                try (Checkpointer checkpointer = new Checkpointer(job.getCheckpointPath(spec.getOutput()),
+                        job.getKey(), Checkpointer.INTERVAL)) {
+                    String reply;
+                    try {
+                        RunResult result = job.run(checkpointer);
+                        reply = "RESULT " + ResultStore.toJson(job, result);
+                    } catch (Exception e) {
+                        reply = "FAILED " + String.valueOf(e).replace('\n', ' ');
+                    }
+
+                    // The checkpoint is only needed until the coordinator has recorded the result
+                    send(out, reply);
+                    if (!"OK".equals(in.readLine())) {
+                        return;
+                    }
+                    if (reply.startsWith("RESULT ")) {
+                        checkpointer.finish();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param out     the connection to the coordinator
+     * @param message the message to send
+     */
+    private static void send(Writer out, String message) throws IOException {
+        out.write(message);
+        out.write('\n');
+        out.flush();
+    }
+}